@@ -0,0 +1,323 @@
+package com.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javafx.application.Platform;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.image.WritableImage;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+
+/**
+ * Headless benchmark of the JavaFX side of the game.
+ *
+ * Starts the toolkit on the Monocle headless platform with the software
+ * pipeline, builds {@link App}'s scene in a real (offscreen) stage and drives
+ * scripted sessions one frame at a time. Each frame runs the scripted game
+ * step, then a CSS pass, a layout pass and a render (snapshot) of the scene,
+ * and records their durations plus the bytes allocated on the FX thread.
+ * The "frame" metric is the sum of those four steps driven directly by the
+ * benchmark; it approximates, but is not, the toolkit's own pulse duration.
+ *
+ * Run with {@code mvn -Pui-bench verify}. Tunables are system properties:
+ * bench.frames, bench.warmup, bench.instruments, bench.out and
+ * bench.maxFrameP95Ms (fail the run when any scenario's p95 frame exceeds it).
+ */
+public final class UiBenchmark {
+
+    /** One scripted frame of game activity, run on the FX thread. */
+    private interface FrameScript {
+        void step(App app, int frame, Random random);
+    }
+
+    private static final String[] METRICS = { "frame", "script", "css", "layout", "render" };
+    private static final int SYNTHETIC_OPTIONABLE = 500;   // Names with a listed chain in generated catalogs
+
+    private UiBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Must be set before the toolkit starts
+        setDefault("glass.platform", "Monocle");
+        setDefault("monocle.platform", "Headless");
+        setDefault("prism.order", "sw");
+
+        int frames = Integer.getInteger("bench.frames", 300);
+        int warmup = Integer.getInteger("bench.warmup", 50);
+        int instruments = Integer.getInteger("bench.instruments", 20000);
+        double maxP95 = Double.parseDouble(System.getProperty("bench.maxFrameP95Ms", "0"));
+        Path out = Path.of(System.getProperty("bench.out", "target/ui-bench.csv"));
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        Platform.setImplicitExit(false);
+        requireTextLayout();
+
+        Path largeCatalog = writeSyntheticCatalog(instruments);
+        List<Result> results = new ArrayList<>();
+        try {
+            results.add(run("default-universe", null, frames, warmup, (app, frame, random) -> {
+                app.advancePrices();
+                app.advanceGameClock();
+            }));
+            results.add(run("large-universe-" + instruments, largeCatalog, frames, warmup, (app, frame, random) -> {
+                app.advancePrices();
+                app.advanceGameClock();
+            }));
+            results.add(run("heavy-news", null, frames, warmup, (app, frame, random) -> {
+                for (int i = 0; i < 3; i++) {
+                    app.generateNewsEvent();
+                }
+                // Frames run back to back, so apply the delayed price impacts inside the frame
+                app.scriptedNewsStep();
+                app.advancePrices();
+                app.advanceGameClock();
+            }));
+            results.add(run("rapid-trades", null, frames, warmup, (app, frame, random) -> {
+                for (int i = 0; i < 5; i++) {
+                    app.scriptedTrade(random.nextInt(app.getStockCount()), 1 + random.nextInt(3), i % 2 == 0);
+                }
+                app.advancePrices();
+                app.advanceGameClock();
+            }));
+            results.add(run("basket-rebalance-1000", largeCatalog, frames, warmup, (app, frame, random) -> {
+                // Rotate a 1,000-name equal-weight portfolio every frame
+                int[] targets = new int[1000];
+                double[] weights = new double[targets.length];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = (frame * 37 + i * 13) % app.getStockCount();
+                    weights[i] = 0.9 / targets.length;
+                }
+                app.scriptedRebalance(targets, weights);
+                app.advancePrices();
+                app.advanceGameClock();
+            }));
+        } finally {
+            Files.deleteIfExists(largeCatalog);
+            Platform.exit();
+        }
+
+        report(results, out);
+
+        boolean failed = false;
+        if (maxP95 > 0) {
+            for (Result r : results) {
+                double p95 = percentile(r.millis[0], 0.95);
+                if (p95 > maxP95) {
+                    System.out.printf("FAIL %s: p95 frame %.2f ms exceeds %.2f ms%n", r.name, p95, maxP95);
+                    failed = true;
+                }
+            }
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    // ------------------------------------------------------------------------
+    // Scenario driver
+    // ------------------------------------------------------------------------
+    private static Result run(String name, Path catalog, int frames, int warmup, FrameScript script)
+            throws Exception {
+        if (catalog != null) {
+            System.setProperty("catalog", catalog.toString());
+        } else {
+            System.clearProperty("catalog");
+        }
+
+        App app = new App();
+        Stage stage = onFx(() -> {
+            Stage s = new Stage();
+            s.setScene(app.createScene());
+            s.show();
+            return s;
+        });
+        Scene scene = stage.getScene();
+        Parent root = scene.getRoot();
+        WritableImage image = new WritableImage((int) scene.getWidth(), (int) scene.getHeight());
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        Result result = new Result(name, frames);
+        Random random = new Random(42);
+        for (int f = 0; f < warmup + frames; f++) {
+            int frame = f;
+            long[] sample = onFx(() -> {
+                long alloc0 = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+                long t0 = System.nanoTime();
+                script.step(app, frame, random);
+                long t1 = System.nanoTime();
+                root.applyCss();
+                long t2 = System.nanoTime();
+                root.layout();
+                long t3 = System.nanoTime();
+                scene.snapshot(image);
+                long t4 = System.nanoTime();
+                long alloc1 = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+                return new long[] { t4 - t0, t1 - t0, t2 - t1, t3 - t2, t4 - t3, alloc1 - alloc0 };
+            });
+            if (f >= warmup) {
+                result.record(f - warmup, sample);
+            }
+        }
+
+        onFx(() -> {
+            stage.close();
+            return null;
+        });
+        return result;
+    }
+
+    /**
+     * Lays out one string so a missing native text stack fails the run up front
+     * with a clear message instead of deep inside the first scene.
+     */
+    private static void requireTextLayout() throws Exception {
+        try {
+            onFx(() -> new Text("probe").getLayoutBounds());
+        } catch (ExecutionException e) {
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof UnsatisfiedLinkError) {
+                    System.out.println("FAIL: JavaFX text layout could not load its native libraries (" + t.getMessage()
+                            + "). On Linux it needs Pango: install libpango-1.0-0 and libpangoft2-1.0-0.");
+                    Platform.exit();
+                    System.exit(2);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static <T> T onFx(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        return future.get();
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /** Writes a catalog with {@code count} instruments, groups, option listings and templated news. */
+    private static Path writeSyntheticCatalog(int count) throws IOException {
+        Path path = Files.createTempFile("ui-bench-catalog", ".txt");
+        String[] sectors = { "Resources", "Real Estate", "Transport", "Technology", "Energy", "Finance" };
+        Random random = new Random(7);
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (String sector : sectors) {
+                w.write("sector|" + sector + "\n");
+            }
+            for (int i = 0; i < count; i++) {
+                int min = 20 + random.nextInt(300);
+                w.write("stock|Instrument " + i + "|" + sectors[i % sectors.length] + "|" + min + "|"
+                        + (min + 50 + random.nextInt(200)) + "|Synthetic instrument number " + i + ".\n");
+            }
+            for (int i = 0; i + 2 < count; i += 10) {
+                w.write("group|Instrument " + i + "|Instrument " + (i + 1) + ",Instrument " + (i + 2) + "\n");
+            }
+            for (int i = 0; i < Math.min(count, SYNTHETIC_OPTIONABLE); i++) {
+                w.write("options|Instrument " + i + "\n");
+            }
+            w.write("news|{stock} beats quarterly estimates.\n");
+            w.write("news|{stock} hit by supply disruption in the outer belt.\n");
+            w.write("news|Regulators open inquiry into {stock}.\n");
+        }
+        return path;
+    }
+
+    // ------------------------------------------------------------------------
+    // Results
+    // ------------------------------------------------------------------------
+    private static final class Result {
+        final String name;
+        final double[][] millis;
+        final long[] allocBytes;
+
+        Result(String name, int frames) {
+            this.name = name;
+            this.millis = new double[METRICS.length][frames];
+            this.allocBytes = new long[frames];
+        }
+
+        void record(int frame, long[] sample) {
+            for (int m = 0; m < METRICS.length; m++) {
+                millis[m][frame] = sample[m] / 1e6;
+            }
+            allocBytes[frame] = sample[METRICS.length];
+        }
+    }
+
+    private static void report(List<Result> results, Path out) throws IOException {
+        System.out.println("frame = script + applyCss + layout + snapshot, driven by the benchmark (not the FX pulse)");
+        System.out.printf("%-26s %-7s %9s %9s %9s %9s%n", "scenario", "metric", "mean ms", "p50 ms", "p95 ms", "max ms");
+        for (Result r : results) {
+            for (int m = 0; m < METRICS.length; m++) {
+                double[] v = r.millis[m];
+                System.out.printf("%-26s %-7s %9.3f %9.3f %9.3f %9.3f%n", r.name, METRICS[m],
+                        mean(v), percentile(v, 0.50), percentile(v, 0.95), max(v));
+            }
+            System.out.printf("%-26s %-7s %9.1f KB/frame mean, %.1f KB p95%n", r.name, "alloc",
+                    meanBytes(r.allocBytes) / 1024, percentile(toDoubles(r.allocBytes), 0.95) / 1024);
+        }
+
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            w.println("scenario,frame,synthetic_frame_ms,script_ms,css_ms,layout_ms,render_ms,alloc_bytes");
+            for (Result r : results) {
+                for (int f = 0; f < r.allocBytes.length; f++) {
+                    w.printf("%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%d%n", r.name, f, r.millis[0][f], r.millis[1][f],
+                            r.millis[2][f], r.millis[3][f], r.millis[4][f], r.allocBytes[f]);
+                }
+            }
+        }
+        System.out.println("Per-frame samples written to " + out);
+    }
+
+    private static double mean(double[] v) {
+        double sum = 0;
+        for (double x : v) sum += x;
+        return v.length == 0 ? 0 : sum / v.length;
+    }
+
+    private static double meanBytes(long[] v) {
+        return mean(toDoubles(v));
+    }
+
+    private static double max(double[] v) {
+        double m = 0;
+        for (double x : v) m = Math.max(m, x);
+        return m;
+    }
+
+    private static double percentile(double[] v, double p) {
+        if (v.length == 0) return 0;
+        double[] sorted = v.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static double[] toDoubles(long[] v) {
+        double[] d = new double[v.length];
+        for (int i = 0; i < v.length; i++) d[i] = v[i];
+        return d;
+    }
+}
@@ -3,17 +3,20 @@ package com.example;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntPredicate;
 
 import javafx.animation.FadeTransition;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -24,7 +27,10 @@ import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -33,6 +39,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
@@ -57,6 +64,26 @@ public class App extends Application {
     private static final double PRICE_MOVE_UP = 5;   // Max upward price move
     private static final double PRICE_MOVE_DOWN = 5; // Max downward price move
 
+    private static final int RISK_ROLLING_WINDOW = SECONDS_PER_MONTH; // Rolling volatility over one month
+
+    private static final int STOCK_PAGE_SIZE = 50;         // Rows materialized in the stock table
+    private static final int TOP_MOVERS_SHOWN = 3;         // Names per list in the movers summary
+    private static final int FILTER_SORT_LIMIT = 5000;     // Sort filtered ids directly below this many matches
+    private static final double ACTIVITY_SMOOTHING = 0.2;  // EWMA weight of the latest move in a stock's activity
+
+    private static final int TICK_BLOCK_POINTS = 128;                      // Points per compressed history block
+    private static final long TICK_RESIDENT_BUDGET = 64L * 1024 * 1024;    // History bytes kept in memory before spilling
+    private static final int STOCK_CHART_WINDOW = 200;                     // Ticks shown when scrubbing a stock's history
+    private static final int MAX_CHART_POINTS = 400;                       // Points drawn per chart after downsampling
+
+    private static final int[] OPTION_EXPIRY_MONTHS = { 3, 6, 12 };       // Series expire at the end of these months
+    private static final int OPTION_CONTRACT_SIZE = 100;                 // Shares per option contract
+
+    private static final String SORT_CATALOG = "Catalog Order";
+    private static final String SORT_GAINERS = "Top Gainers";
+    private static final String SORT_LOSERS = "Top Losers";
+    private static final String SORT_ACTIVE = "Most Active";
+
     // ------------------------------------------------------------------------
     // Game State
     // ------------------------------------------------------------------------
@@ -67,16 +94,39 @@ public class App extends Application {
     private double startingMoney = 10000.0;
     private double playerMoney = startingMoney;
 
-    // Portfolio: stockName -> shares owned
-    private Map<String, Integer> portfolio = new HashMap<>();
+    // Portfolio: shares owned, indexed by instrument id
+    private int[] holdings;
+
+    // Price and net-worth history; net worth is the series after the last stock
+    private TickStore tickStore;
+    private int netWorthSeriesId;
 
-    // Net-worth chart series
+    // Net-worth chart series (a downsampled view of the tick store)
     private XYChart.Series<Number, Number> netWorthSeries = new XYChart.Series<>();
     private int chartTimeCounter = 0;
 
+    // Option chains and positions (contracts held, indexed by contract id)
+    private OptionChain optionChain;
+    private int[] optionUnderlyings;            // Chain underlying index -> stock id
+    private int[] optionIndexOf;                // Stock id -> chain underlying index, -1 if not listed
+    private double[] optionSpots;
+    private int[] liveContracts = new int[64];  // Held and on-screen contracts, repriced every tick
+    private int[] optionHoldings;
+    private Set<Integer> heldContracts = new LinkedHashSet<>();
+
+    // Resting stop-loss / take-profit / alert triggers
+    private TriggerBook triggerBook;
+    // Trigger fills since the last flush; published as one log append and label update
+    private final StringBuilder triggerLog = new StringBuilder();
+    private double triggerProceeds = 0;
+
+    // Streaming risk statistics over the net-worth series
+    private RiskAnalytics riskAnalytics = new RiskAnalytics(RISK_ROLLING_WINDOW, TOTAL_TIME);
+
     // Monthly news triggers
     private Set<Integer> monthlyNewsTriggers = new HashSet<>();
     private int monthlyNewsCount = 0;
+    private List<NewsImpact> pendingNewsImpacts = new ArrayList<>();
 
     private Random random = new Random();
 
@@ -92,15 +142,37 @@ public class App extends Application {
     private Label cashLabel;
     private Label investedLabel;
     private Label netWorthLabel;
+    private Label riskLabel;
 
     // Center area
     private TableView<Stock> stockTable;
+    private TextField stockFilterField;
+    private ComboBox<String> stockSortBox;
+    private Label stockPageLabel;
+    private Label moversLabel;
     private VBox stockDetailPane;
     private Label stockDescriptionLabel;
     private LineChart<Number, Number> stockChart;
+    private XYChart.Series<Number, Number> stockSeries = new XYChart.Series<>();
+    private Slider historyScrubber;
+    private CheckBox fullHistoryBox;
+    private Label scrubberLabel;
+    private boolean scrubberLive = true;       // Follow the latest tick until the user drags back
+    private boolean updatingScrubber = false;
+    private TableView<OptionRow> optionTable;
+    private ObservableList<OptionRow> optionRows = FXCollections.observableArrayList();
 
     // Right panel (Trade controls + Market log)
     private TextField buySellSharesField;
+    private TextField triggerPriceField;
+    private Button stopLossButton;
+    private Button takeProfitButton;
+    private Button alertButton;
+    private Button clearTriggersButton;
+    private TextField basketField;
+    private Button basketButton;
+    private Button rebalanceButton;
+    private Label triggerCountLabel;
     private TextArea marketLogArea;
 
     // Bottom area
@@ -109,21 +181,57 @@ public class App extends Application {
 
     // Stock data
     private ObservableList<Stock> stocks;
+    private MoversIndex moversIndex;
 
-    // Predefined news headlines
-    private List<String> possibleNews = new ArrayList<>();
-    // Groups for complementary/substitute logic
-    private Map<String, List<String>> stockGroups = new HashMap<>();
+    // Stock table view: only the visible page is materialized as table rows
+    private ObservableList<Stock> pageItems = FXCollections.observableArrayList();
+    private int[] pageIds = new int[STOCK_PAGE_SIZE];
+    private int pageIndex = 0;
+    private MoversIndex.Ranking sortRanking = null;  // null = catalog order
+    private boolean[] filterMask = null;             // null = no filter
+    private int[] filteredIds = null;                // matching ids in catalog order
+    private int filteredCount = 0;
+    private Stock selectedStock;
+
+    // Instruments, sectors, groups and news templates
+    private InstrumentCatalog catalog;
 
     // Formatter for money
     private static final DecimalFormat MONEY_FMT = new DecimalFormat("#,##0.00");
 
     @Override
     public void start(Stage stage) {
+        Scene scene = createScene();
+        stage.setTitle("Intergalactic Stock Market - Year 2100");
+        stage.setScene(scene);
+        stage.show();
+
+        // Start the timers (game, stock price updates, news, etc.)
+        startGameTimer();
+        startStockPriceTimer();
+        startNewsTimer();
+    }
+
+    /**
+     * Initializes the game state and builds the whole scene graph without
+     * showing it or starting any timers.
+     */
+    Scene createScene() {
         // 1) Initialize data
-        initPossibleNews();
-        initStockGroups();
+        catalog = InstrumentCatalog.loadDefault();
+        holdings = new int[catalog.size()];
+        tickStore = new TickStore(catalog.size() + 1, TICK_BLOCK_POINTS, TICK_RESIDENT_BUDGET);
+        netWorthSeriesId = catalog.size();
         stocks = generateStocks();
+        triggerBook = new TriggerBook(catalog.size());
+        optionChain = createOptionChain();
+        optionSpots = new double[optionChain.getUnderlyingCount()];
+        optionHoldings = new int[optionChain.getContractCount()];
+        moversIndex = new MoversIndex(stocks.size());
+        for (Stock s : stocks) {
+            onPriceChanged(s);
+        }
+        filteredCount = stocks.size();
 
         // 2) Build the root layout with a nice background
         BorderPane root = new BorderPane();
@@ -138,12 +246,12 @@ public class App extends Application {
         root.setTop(topBar);
 
         // 4) Create the center area: a horizontal box with
-        //    [ stock table | stock detail pane | trade/log panel ]
-        stockTable = buildStockTable();
+        //    [ stock browser | stock detail pane | trade/log panel ]
+        VBox stockBrowser = buildStockBrowser();
         stockDetailPane = buildStockDetailPane();
         VBox tradeAndLogPanel = buildRightPanel();
 
-        HBox centerBox = new HBox(15, stockTable, stockDetailPane, tradeAndLogPanel);
+        HBox centerBox = new HBox(15, stockBrowser, stockDetailPane, tradeAndLogPanel);
         centerBox.setAlignment(Pos.CENTER_LEFT);
         centerBox.setPadding(new Insets(15));
         root.setCenter(centerBox);
@@ -158,22 +266,21 @@ public class App extends Application {
         bottomBox.setPadding(new Insets(15));
         root.setBottom(bottomBox);
 
-        // 6) Create the scene and stage
-        Scene scene = new Scene(root, 1280, 800);
-        stage.setTitle("Intergalactic Stock Market - Year 2100");
-        stage.setScene(scene);
-        stage.show();
-
-        // 7) Set up selection listener for the stock table
+        // 6) Set up selection listener for the stock table. Page refreshes briefly
+        //    clear the selection, so trading keeps using the last stock picked.
         stockTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
-            updateStockDetailPane(newSel);
+            if (newSel != null && newSel != selectedStock) {
+                selectedStock = newSel;
+                updateStockDetailPane(newSel);
+            }
         });
-
-        // 8) Start the timers (game, stock price updates, news, etc.)
-        startGameTimer();
-        startStockPriceTimer();
-        startNewsTimer();
+        refreshStockView();
+        updateMoversLabel();
+        repriceOptions();
         generateMonthlyNewsTriggers();
+
+        // 7) Create the scene
+        return new Scene(root, 1280, 800);
     }
 
     // ------------------------------------------------------------------------
@@ -204,8 +311,160 @@ public class App extends Application {
     }
 
     // ------------------------------------------------------------------------
-    // Stock Table
+    // Stock Browser (filter, sort, paged table, top movers)
     // ------------------------------------------------------------------------
+    private VBox buildStockBrowser() {
+        stockFilterField = new TextField();
+        stockFilterField.setPromptText("Filter by name or sector");
+        stockFilterField.textProperty().addListener((obs, oldText, newText) -> applyStockFilter(newText));
+
+        stockSortBox = new ComboBox<>(FXCollections.observableArrayList(
+            SORT_CATALOG, SORT_GAINERS, SORT_LOSERS, SORT_ACTIVE
+        ));
+        stockSortBox.setValue(SORT_CATALOG);
+        stockSortBox.setOnAction(e -> {
+            sortRanking = rankingFor(stockSortBox.getValue());
+            pageIndex = 0;
+            refreshStockView();
+        });
+
+        HBox filterBox = new HBox(5, stockFilterField, stockSortBox);
+        filterBox.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(stockFilterField, Priority.ALWAYS);
+
+        stockTable = buildStockTable();
+        VBox.setVgrow(stockTable, Priority.ALWAYS);
+
+        Button prevButton = new Button("<");
+        prevButton.setOnAction(e -> changePage(-1));
+        Button nextButton = new Button(">");
+        nextButton.setOnAction(e -> changePage(1));
+        stockPageLabel = new Label();
+        HBox pagerBox = new HBox(8, prevButton, stockPageLabel, nextButton);
+        pagerBox.setAlignment(Pos.CENTER);
+
+        moversLabel = new Label();
+        moversLabel.setWrapText(true);
+        moversLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #333;");
+
+        VBox browser = new VBox(8, filterBox, stockTable, pagerBox, moversLabel);
+        browser.setPrefWidth(460);
+        browser.setStyle(
+            "-fx-background-color: rgba(255,255,255,0.8);" +
+            "-fx-border-color: #ccc;" +
+            "-fx-border-radius: 5;" +
+            "-fx-padding: 10;"
+        );
+        return browser;
+    }
+
+    private MoversIndex.Ranking rankingFor(String sortMode) {
+        switch (sortMode) {
+            case SORT_GAINERS: return MoversIndex.Ranking.GAINERS;
+            case SORT_LOSERS: return MoversIndex.Ranking.LOSERS;
+            case SORT_ACTIVE: return MoversIndex.Ranking.MOST_ACTIVE;
+            default: return null;
+        }
+    }
+
+    private void applyStockFilter(String text) {
+        String needle = text == null ? "" : text.trim().toLowerCase();
+        if (needle.isEmpty()) {
+            filterMask = null;
+            filteredIds = null;
+            filteredCount = stocks.size();
+        } else {
+            // Match sector names once, then scan instrument names
+            boolean[] sectorMatch = new boolean[catalog.getSectorCount()];
+            for (int sid = 0; sid < sectorMatch.length; sid++) {
+                sectorMatch[sid] = catalog.getSectorName(sid).toLowerCase().contains(needle);
+            }
+            boolean[] mask = new boolean[stocks.size()];
+            int[] ids = new int[stocks.size()];
+            int count = 0;
+            for (int id = 0; id < mask.length; id++) {
+                if (sectorMatch[catalog.getSector(id)] || catalog.getName(id).toLowerCase().contains(needle)) {
+                    mask[id] = true;
+                    ids[count++] = id;
+                }
+            }
+            filterMask = mask;
+            filteredIds = ids;
+            filteredCount = count;
+        }
+        pageIndex = 0;
+        refreshStockView();
+    }
+
+    private void changePage(int delta) {
+        int lastPage = Math.max(0, (filteredCount - 1) / STOCK_PAGE_SIZE);
+        pageIndex = Math.max(0, Math.min(lastPage, pageIndex + delta));
+        refreshStockView();
+    }
+
+    /**
+     * Fetches only the visible page of the current filter/sort and swaps it into
+     * the table. Rankings come from the movers index, so nothing is re-sorted here.
+     */
+    private void refreshStockView() {
+        int lastPage = Math.max(0, (filteredCount - 1) / STOCK_PAGE_SIZE);
+        if (pageIndex > lastPage) pageIndex = lastPage;
+        int offset = pageIndex * STOCK_PAGE_SIZE;
+
+        int count;
+        if (sortRanking == null) {
+            count = Math.max(0, Math.min(STOCK_PAGE_SIZE, filteredCount - offset));
+            for (int i = 0; i < count; i++) {
+                pageIds[i] = filteredIds == null ? offset + i : filteredIds[offset + i];
+            }
+        } else if (filteredIds != null && filteredCount <= FILTER_SORT_LIMIT) {
+            count = moversIndex.fetchFrom(sortRanking, filteredIds, filteredCount, offset, STOCK_PAGE_SIZE, pageIds);
+        } else {
+            boolean[] mask = filterMask;
+            IntPredicate filter = mask == null ? null : id -> mask[id];
+            count = moversIndex.fetch(sortRanking, filter, offset, STOCK_PAGE_SIZE, pageIds);
+        }
+
+        boolean samePage = count == pageItems.size();
+        for (int i = 0; samePage && i < count; i++) {
+            samePage = pageItems.get(i).getId() == pageIds[i];
+        }
+        if (samePage) {
+            stockTable.refresh();
+        } else {
+            List<Stock> page = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                page.add(stocks.get(pageIds[i]));
+            }
+            pageItems.setAll(page);
+            if (selectedStock != null && page.contains(selectedStock)) {
+                stockTable.getSelectionModel().select(selectedStock);
+            }
+        }
+        stockPageLabel.setText("Page " + (pageIndex + 1) + " / " + (lastPage + 1)
+            + "  (" + filteredCount + " instruments)");
+    }
+
+    private void updateMoversLabel() {
+        moversLabel.setText(
+            "Top Gainers: " + formatMovers(MoversIndex.Ranking.GAINERS) +
+            "\nTop Losers: " + formatMovers(MoversIndex.Ranking.LOSERS) +
+            "\nMost Active: " + formatMovers(MoversIndex.Ranking.MOST_ACTIVE)
+        );
+    }
+
+    private String formatMovers(MoversIndex.Ranking ranking) {
+        int[] ids = new int[TOP_MOVERS_SHOWN];
+        int n = moversIndex.fetch(ranking, null, 0, TOP_MOVERS_SHOWN, ids);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            Stock s = stocks.get(ids[i]);
+            if (i > 0) sb.append(", ");
+            sb.append(s.getName()).append(' ').append(String.format("%+.2f%%", s.getPercentChange()));
+        }
+        return sb.toString();
+    }
+
     private TableView<Stock> buildStockTable() {
         TableView<Stock> table = new TableView<>();
 
@@ -249,8 +508,14 @@ public class App extends Application {
             }
         });
 
+        // Ordering comes from the sort box and movers index, not per-page column sorts
+        nameCol.setSortable(false);
+        priceCol.setSortable(false);
+        moveCol.setSortable(false);
+        percentCol.setSortable(false);
+
         table.getColumns().addAll(nameCol, priceCol, moveCol, percentCol);
-        table.setItems(stocks);
+        table.setItems(pageItems);
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
         table.setStyle(
@@ -277,13 +542,48 @@ public class App extends Application {
         xAxis.setLabel("Time (sec)");
         yAxis.setLabel("Price ($)");
 
+        xAxis.setForceZeroInRange(false);
+        yAxis.setForceZeroInRange(false);
+
         stockChart = new LineChart<>(xAxis, yAxis);
         stockChart.setPrefSize(350, 250);
         stockChart.setCreateSymbols(false);
         stockChart.setAnimated(false);
         stockChart.setStyle("-fx-background-color: #fafafa;");
-
-        VBox detailPane = new VBox(10, stockDescriptionLabel, stockChart);
+        stockChart.getData().add(stockSeries);
+
+        // Time scrubber: drag back to look at any 200-tick window of the run
+        historyScrubber = new Slider(0, 0, 0);
+        historyScrubber.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (!updatingScrubber) {
+                scrubberLive = newVal.doubleValue() >= historyScrubber.getMax();
+                renderStockChart();
+            }
+        });
+        fullHistoryBox = new CheckBox("Whole run");
+        fullHistoryBox.setOnAction(e -> renderStockChart());
+        scrubberLabel = new Label();
+        scrubberLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #333;");
+        HBox scrubberBox = new HBox(8, historyScrubber, fullHistoryBox);
+        scrubberBox.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(historyScrubber, Priority.ALWAYS);
+
+        optionTable = buildOptionTable();
+
+        Button buyCallButton = new Button("Buy Call");
+        buyCallButton.setOnAction(e -> tradeOption(false, true));
+        Button sellCallButton = new Button("Sell Call");
+        sellCallButton.setOnAction(e -> tradeOption(false, false));
+        Button buyPutButton = new Button("Buy Put");
+        buyPutButton.setOnAction(e -> tradeOption(true, true));
+        Button sellPutButton = new Button("Sell Put");
+        sellPutButton.setOnAction(e -> tradeOption(true, false));
+        HBox optionTradeBox = new HBox(5, buyCallButton, sellCallButton, buyPutButton, sellPutButton);
+        optionTradeBox.setAlignment(Pos.CENTER_LEFT);
+
+        VBox detailPane = new VBox(10, stockDescriptionLabel, stockChart, scrubberBox, scrubberLabel,
+            new Label("Options (" + OPTION_CONTRACT_SIZE + " shares per contract, quantity from Shares):"),
+            optionTable, optionTradeBox);
         detailPane.setPadding(new Insets(10));
         detailPane.setAlignment(Pos.TOP_LEFT);
         detailPane.setPrefWidth(350);
@@ -300,17 +600,100 @@ public class App extends Application {
     private void updateStockDetailPane(Stock stock) {
         if (stock == null) {
             stockDescriptionLabel.setText("Select a stock to see details.");
-            stockChart.getData().clear();
+            stockSeries.getData().clear();
+            scrubberLabel.setText("");
             return;
         }
         stockDescriptionLabel.setText(
-            stock.getName() + ":\n" + stock.getDescription()
+            stock.getName() + " (" + catalog.getSectorName(catalog.getSector(stock.getId())) + "):\n"
+                + stock.getDescription()
         );
-        XYChart.Series<Number, Number> series = new XYChart.Series<>();
-        series.setName(stock.getName());
-        series.getData().addAll(stock.getPriceHistory());
-        stockChart.getData().clear();
-        stockChart.getData().add(series);
+        stockSeries.setName(stock.getName());
+        scrubberLive = true;
+        renderStockChart();
+
+        List<OptionRow> rows = new ArrayList<>();
+        int underlying = optionIndexOf[stock.getId()];
+        if (underlying >= 0) {
+            for (int e = 0; e < optionChain.getExpiryCount(); e++) {
+                for (int k = 0; k < optionChain.getStrikeCount(); k++) {
+                    rows.add(new OptionRow(underlying, e, k));
+                }
+            }
+        }
+        optionRows.setAll(rows);
+        optionTable.setPlaceholder(new Label(rows.isEmpty() ? "No options listed." : ""));
+        repriceLiveContracts();
+    }
+
+    // ------------------------------------------------------------------------
+    // Option Chain Table
+    // ------------------------------------------------------------------------
+    private TableView<OptionRow> buildOptionTable() {
+        TableView<OptionRow> table = new TableView<>(optionRows);
+        String[][] columns = {
+            { "Expiry", "expiry" }, { "Strike", "strike" }, { "Call", "call" }, { "Put", "put" },
+            { "\u0394 C/P", "delta" }, { "\u0393", "gamma" }, { "Vega", "vega" }, { "\u0398/mo C", "theta" }
+        };
+        for (String[] c : columns) {
+            TableColumn<OptionRow, String> col = new TableColumn<>(c[0]);
+            col.setCellValueFactory(new PropertyValueFactory<>(c[1]));
+            col.setSortable(false);
+            table.getColumns().add(col);
+        }
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPlaceholder(new Label("Select a stock to see its options."));
+        table.setPrefHeight(180);
+        table.setStyle("-fx-font-size: 11px;");
+        return table;
+    }
+
+    /**
+     * Redraws the selected stock's chart from the tick store, either the whole
+     * run or the window ending at the scrubber position.
+     */
+    private void renderStockChart() {
+        if (selectedStock == null) return;
+        int id = selectedStock.getId();
+        int first = tickStore.firstTimestamp(id);
+        int last = tickStore.lastTimestamp(id);
+
+        updatingScrubber = true;
+        historyScrubber.setMin(first);
+        historyScrubber.setMax(last);
+        if (scrubberLive) {
+            historyScrubber.setValue(last);
+        }
+        updatingScrubber = false;
+
+        int to = fullHistoryBox.isSelected() ? last : (int) Math.round(historyScrubber.getValue());
+        int from = fullHistoryBox.isSelected() ? first : Math.max(first, to - STOCK_CHART_WINDOW + 1);
+        fillSeries(id, from, to, stockSeries);
+        scrubberLabel.setText("Showing t=" + from + " to t=" + to
+            + (scrubberLive || fullHistoryBox.isSelected() ? " (live)" : ""));
+    }
+
+    /** Loads a time range from the tick store into a chart series, downsampled to MAX_CHART_POINTS. */
+    private void fillSeries(int seriesId, int from, int to, XYChart.Series<Number, Number> target) {
+        // Timestamps are tick counters, so the range length bounds the point count
+        int stride = Math.max(1, (to - from + MAX_CHART_POINTS) / MAX_CHART_POINTS);
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(MAX_CHART_POINTS + 1);
+        int[] seen = {0};
+        double[] lastPoint = {Double.NaN, 0};
+        tickStore.scan(seriesId, from, to, (ts, value) -> {
+            if (seen[0]++ % stride == 0) {
+                points.add(new XYChart.Data<>(ts, value));
+                lastPoint[0] = Double.NaN;
+            } else {
+                lastPoint[0] = ts;
+                lastPoint[1] = value;
+            }
+        });
+        // Always end on the newest point in range
+        if (!Double.isNaN(lastPoint[0])) {
+            points.add(new XYChart.Data<>((int) lastPoint[0], lastPoint[1]));
+        }
+        target.getData().setAll(points);
     }
 
     // ------------------------------------------------------------------------
@@ -337,10 +720,52 @@ public class App extends Application {
         HBox tradeBox2 = new HBox(5, buyButton, sellButton, buyMaxButton, sellAllButton);
         tradeBox2.setAlignment(Pos.CENTER_LEFT);
 
+        // Conditional orders and alerts on the selected stock
+        triggerPriceField = new TextField();
+        triggerPriceField.setPromptText("Price");
+        triggerPriceField.setPrefWidth(80);
+        triggerCountLabel = new Label("Resting triggers: 0");
+        triggerCountLabel.setStyle("-fx-font-size: 12px;");
+
+        stopLossButton = new Button("Stop Loss");
+        stopLossButton.setOnAction(e -> addTrigger(TriggerBook.Kind.STOP_LOSS));
+        takeProfitButton = new Button("Take Profit");
+        takeProfitButton.setOnAction(e -> addTrigger(TriggerBook.Kind.TAKE_PROFIT));
+        alertButton = new Button("Alert");
+        alertButton.setOnAction(e -> addTrigger(null));
+        clearTriggersButton = new Button("Clear");
+        clearTriggersButton.setOnAction(e -> clearTriggers());
+
+        HBox tradeBox3 = new HBox(5, new Label("Trigger $:"), triggerPriceField, triggerCountLabel);
+        tradeBox3.setAlignment(Pos.CENTER_LEFT);
+
+        HBox tradeBox4 = new HBox(5, stopLossButton, takeProfitButton, alertButton, clearTriggersButton);
+        tradeBox4.setAlignment(Pos.CENTER_LEFT);
+
+        // Multi-stock orders: "Name:+10; Name:-5" to execute, "Name:40%; Name:60%" to rebalance
+        basketField = new TextField();
+        basketField.setPromptText("Name:+10; Name:-5  or  Name:40%");
+        basketField.setPrefWidth(220);
+
+        basketButton = new Button("Execute Basket");
+        basketButton.setOnAction(e -> executeBasketOrders());
+        rebalanceButton = new Button("Rebalance");
+        rebalanceButton.setOnAction(e -> rebalanceToTargets());
+
+        HBox tradeBox5 = new HBox(5, new Label("Basket:"), basketField);
+        tradeBox5.setAlignment(Pos.CENTER_LEFT);
+
+        HBox tradeBox6 = new HBox(5, basketButton, rebalanceButton);
+        tradeBox6.setAlignment(Pos.CENTER_LEFT);
+
         VBox tradeControls = new VBox(8,
             new Label("Trade Controls:"),
             tradeBox1,
-            tradeBox2
+            tradeBox2,
+            tradeBox3,
+            tradeBox4,
+            tradeBox5,
+            tradeBox6
         );
         tradeControls.setPadding(new Insets(10));
         tradeControls.setStyle(
@@ -409,6 +834,9 @@ public class App extends Application {
         investedLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
         netWorthLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
 
+        riskLabel = new Label(formatRiskSummary(playerMoney));
+        riskLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #333;");
+
         NumberAxis xAxis = new NumberAxis();
         NumberAxis yAxis = new NumberAxis();
         xAxis.setLabel("Time (sec)");
@@ -425,6 +853,7 @@ public class App extends Application {
         VBox portfolioBox = new VBox(10,
             new Label("Portfolio:"),
             cashLabel, investedLabel, netWorthLabel,
+            riskLabel,
             netWorthChart
         );
         portfolioBox.setPadding(new Insets(10));
@@ -441,48 +870,62 @@ public class App extends Application {
     // Timers & Month Logic
     // ------------------------------------------------------------------------
     private void startGameTimer() {
-        Timeline gameTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            totalTimeLeft--;
-            secondsLeftInMonth--;
-
-            int secondOfMonth = SECONDS_PER_MONTH - secondsLeftInMonth;
-            if (monthlyNewsTriggers.contains(secondOfMonth)) {
-                generateNewsEvent();
-                monthlyNewsCount++;
-            }
-
-            if (secondsLeftInMonth <= 0) {
-                currentMonthIndex++;
-                if (currentMonthIndex >= TOTAL_MONTHS) {
-                    endGame();
-                    return;
-                }
-                secondsLeftInMonth = SECONDS_PER_MONTH;
-                monthLabel.setText("Month: " + monthName(currentMonthIndex));
-                generateMonthlyNewsTriggers();
-            }
-
-            updateTimeLabels();
-            if (totalTimeLeft <= 0) {
-                endGame();
-            }
-            updateNetWorthChart();
-        }));
+        Timeline gameTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> advanceGameClock()));
         gameTimeline.setCycleCount(Timeline.INDEFINITE);
         gameTimeline.play();
     }
 
     private void startStockPriceTimer() {
-        Timeline priceTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            for (Stock s : stocks) {
-                s.updatePrice();
-            }
-            stockTable.refresh();
-        }));
+        Timeline priceTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> advancePrices()));
         priceTimeline.setCycleCount(Timeline.INDEFINITE);
         priceTimeline.play();
     }
 
+    /** One game second: clock, monthly news, month rollover and net-worth sample. */
+    void advanceGameClock() {
+        totalTimeLeft--;
+        secondsLeftInMonth--;
+
+        int secondOfMonth = SECONDS_PER_MONTH - secondsLeftInMonth;
+        if (monthlyNewsTriggers.contains(secondOfMonth)) {
+            generateNewsEvent();
+            monthlyNewsCount++;
+        }
+
+        if (secondsLeftInMonth <= 0) {
+            currentMonthIndex++;
+            if (currentMonthIndex >= TOTAL_MONTHS) {
+                endGame();
+                return;
+            }
+            secondsLeftInMonth = SECONDS_PER_MONTH;
+            monthLabel.setText("Month: " + monthName(currentMonthIndex));
+            generateMonthlyNewsTriggers();
+        }
+
+        updateTimeLabels();
+        if (totalTimeLeft <= 0) {
+            endGame();
+        }
+        updateNetWorthChart();
+    }
+
+    /** One price tick: move every stock and refresh the views that depend on prices. */
+    void advancePrices() {
+        for (Stock s : stocks) {
+            s.updatePrice();
+            onPriceChanged(s);
+        }
+        refreshStockView();
+        updateMoversLabel();
+        if (scrubberLive || fullHistoryBox.isSelected()) {
+            renderStockChart();
+        }
+        repriceOptions();
+        settleExpiredOptions();
+        flushTriggerActivity();
+    }
+
     private void startNewsTimer() {
         // Optional: a background "random" news every 5s with some probability
         Timeline newsTimeline = new Timeline(new KeyFrame(Duration.seconds(5), e -> {
@@ -508,7 +951,7 @@ public class App extends Application {
     // Trading Logic
     // ------------------------------------------------------------------------
     private void buyShares(boolean buyMax) {
-        Stock selected = stockTable.getSelectionModel().getSelectedItem();
+        Stock selected = selectedStock;
         if (selected == null) {
             logToMarket("No stock selected to buy.");
             return;
@@ -528,26 +971,18 @@ public class App extends Application {
                 return;
             }
         }
-        double cost = sharesToBuy * selected.getPrice();
-        if (cost > playerMoney) {
-            logToMarket("Insufficient cash to buy " + sharesToBuy + " shares of " + selected.getName());
-            return;
+        if (executeBuy(selected, sharesToBuy)) {
+            updateMoneyLabels();
         }
-        playerMoney -= cost;
-        int oldShares = portfolio.getOrDefault(selected.getName(), 0);
-        portfolio.put(selected.getName(), oldShares + sharesToBuy);
-        showBuyAnimation(cost);
-        logToMarket("Bought " + sharesToBuy + " shares of " + selected.getName() + " @ $" + MONEY_FMT.format(selected.getPrice()));
-        updateMoneyLabels();
     }
 
     private void sellShares(boolean sellAll) {
-        Stock selected = stockTable.getSelectionModel().getSelectedItem();
+        Stock selected = selectedStock;
         if (selected == null) {
             logToMarket("No stock selected to sell.");
             return;
         }
-        int owned = portfolio.getOrDefault(selected.getName(), 0);
+        int owned = holdings[selected.getId()];
         if (owned <= 0) {
             logToMarket("You own 0 shares of " + selected.getName());
             return;
@@ -562,30 +997,438 @@ public class App extends Application {
                 logToMarket("Invalid share amount.");
                 return;
             }
-            if (sharesToSell > owned) {
-                logToMarket("You only own " + owned + " shares of " + selected.getName());
+        }
+        if (executeSell(selected, sharesToSell)) {
+            updateMoneyLabels();
+        }
+    }
+
+    /** Buys at the current price and logs the trade. Callers refresh the money labels. */
+    private boolean executeBuy(Stock stock, int shares) {
+        double cost = shares * stock.getPrice();
+        if (cost > playerMoney) {
+            logToMarket("Insufficient cash to buy " + shares + " shares of " + stock.getName());
+            return false;
+        }
+        playerMoney -= cost;
+        holdings[stock.getId()] += shares;
+        showBuyAnimation(cost);
+        logToMarket("Bought " + shares + " shares of " + stock.getName() + " @ $" + MONEY_FMT.format(stock.getPrice()));
+        return true;
+    }
+
+    /** Sells at the current price; see {@link #executeBuy}. */
+    private boolean executeSell(Stock stock, int shares) {
+        int owned = holdings[stock.getId()];
+        if (shares > owned) {
+            logToMarket("You only own " + owned + " shares of " + stock.getName());
+            return false;
+        }
+        double revenue = fillSell(stock, shares);
+        showSellAnimation(revenue);
+        logToMarket("Sold " + shares + " shares of " + stock.getName() + " @ $" + MONEY_FMT.format(stock.getPrice()));
+        return true;
+    }
+
+    /**
+     * Moves {@code shares} (at most the holding) into cash at the current price and
+     * returns the revenue. Touches no UI; callers log and animate the fill.
+     */
+    private double fillSell(Stock stock, int shares) {
+        double revenue = shares * stock.getPrice();
+        playerMoney += revenue;
+        holdings[stock.getId()] -= shares;
+        return revenue;
+    }
+
+    // ------------------------------------------------------------------------
+    // Basket Orders & Rebalancing
+    // ------------------------------------------------------------------------
+
+    /** Executes the basket field as signed share orders, e.g. "Name:+10; Other:-5". */
+    private void executeBasketOrders() {
+        Basket basket = new Basket(catalog);
+        for (String entry : basketField.getText().split(";")) {
+            if (entry.isBlank()) continue;
+            int sep = entry.lastIndexOf(':');
+            int id = sep < 0 ? -1 : catalog.idOf(entry.substring(0, sep).trim());
+            if (id < 0) {
+                logToMarket("Unknown basket entry: " + entry.trim());
+                return;
+            }
+            String amount = entry.substring(sep + 1).trim();
+            try {
+                basket.add(id, Integer.parseInt(amount.startsWith("+") ? amount.substring(1) : amount));
+            } catch (NumberFormatException ex) {
+                logToMarket("Invalid share amount in basket entry: " + entry.trim());
                 return;
             }
         }
-        double revenue = sharesToSell * selected.getPrice();
-        playerMoney += revenue;
-        portfolio.put(selected.getName(), owned - sharesToSell);
-        showSellAnimation(revenue);
-        logToMarket("Sold " + sharesToSell + " shares of " + selected.getName() + " @ $" + MONEY_FMT.format(selected.getPrice()));
+        if (basket.size() == 0) {
+            logToMarket("Basket is empty.");
+            return;
+        }
+        executeBasket(basket);
+    }
+
+    /**
+     * Rebalances to the target weights in the basket field, e.g. "Name:40%; Other:60%".
+     * Held stocks that are not listed are sold; whatever is not allocated stays in cash.
+     */
+    private void rebalanceToTargets() {
+        String[] entries = basketField.getText().split(";");
+        int[] targets = new int[entries.length];
+        double[] weights = new double[entries.length];
+        int count = 0;
+        for (String entry : entries) {
+            if (entry.isBlank()) continue;
+            int sep = entry.lastIndexOf(':');
+            int id = sep < 0 ? -1 : catalog.idOf(entry.substring(0, sep).trim());
+            if (id < 0) {
+                logToMarket("Unknown basket entry: " + entry.trim());
+                return;
+            }
+            String percent = entry.substring(sep + 1).trim();
+            try {
+                weights[count] = Double.parseDouble(percent.endsWith("%")
+                    ? percent.substring(0, percent.length() - 1) : percent) / 100;
+            } catch (NumberFormatException ex) {
+                logToMarket("Invalid weight in basket entry: " + entry.trim());
+                return;
+            }
+            targets[count++] = id;
+        }
+        rebalance(targets, weights, count);
+    }
+
+    private void rebalance(int[] targets, double[] weights, int count) {
+        Basket basket;
+        try {
+            basket = Basket.rebalance(catalog, holdings, this::priceOf, playerMoney, targets, weights, count);
+        } catch (IllegalArgumentException ex) {
+            logToMarket("Rebalance rejected: " + ex.getMessage());
+            return;
+        }
+        executeBasket(basket);
+    }
+
+    /**
+     * Fills every leg of a basket against one price snapshot, then publishes a
+     * single log line and money-label update for the whole batch.
+     */
+    private boolean executeBasket(Basket basket) {
+        try {
+            playerMoney = basket.execute(holdings, playerMoney, this::priceOf);
+        } catch (IllegalArgumentException ex) {
+            logToMarket("Basket rejected: " + ex.getMessage());
+            return false;
+        }
+        int filled = 0;
+        for (int leg = 0; leg < basket.size(); leg++) {
+            if (basket.getShares(leg) != 0) filled++;
+        }
+        double net = basket.getBoughtValue() - basket.getSoldValue();
+        if (net > 0) {
+            showBuyAnimation(net);
+        } else if (net < 0) {
+            showSellAnimation(-net);
+        }
+        logToMarket("Basket filled " + filled + " order(s): bought $" + MONEY_FMT.format(basket.getBoughtValue())
+            + ", sold $" + MONEY_FMT.format(basket.getSoldValue()));
         updateMoneyLabels();
+        return true;
+    }
+
+    private double priceOf(int stockId) {
+        return stocks.get(stockId).getPrice();
+    }
+
+    // ------------------------------------------------------------------------
+    // Conditional Orders & Alerts
+    // ------------------------------------------------------------------------
+
+    /** Rests a trigger on the selected stock; a null kind adds an alert in the direction of the level. */
+    private void addTrigger(TriggerBook.Kind kind) {
+        Stock selected = selectedStock;
+        if (selected == null) {
+            logToMarket("No stock selected for a trigger.");
+            return;
+        }
+        double level;
+        try {
+            level = Double.parseDouble(triggerPriceField.getText().trim());
+        } catch (NumberFormatException ex) {
+            logToMarket("Invalid trigger price.");
+            return;
+        }
+        if (!(level > 0 && level < Double.POSITIVE_INFINITY)) {
+            logToMarket("Trigger price must be a positive amount.");
+            return;
+        }
+        double price = selected.getPrice();
+        if (kind == null) {
+            kind = level <= price ? TriggerBook.Kind.ALERT_BELOW : TriggerBook.Kind.ALERT_ABOVE;
+        } else if (kind.firesBelow() ? level >= price : level <= price) {
+            logToMarket(kind.getLabel() + " level must be " + (kind.firesBelow() ? "below" : "above")
+                + " the current price of $" + MONEY_FMT.format(price));
+            return;
+        }
+
+        int shares = 0;
+        if (!kind.isAlert()) {
+            try {
+                shares = Integer.parseInt(buySellSharesField.getText().trim());
+            } catch (NumberFormatException ex) {
+                logToMarket("Invalid share amount.");
+                return;
+            }
+            if (shares <= 0) {
+                logToMarket("Invalid share amount.");
+                return;
+            }
+        }
+        triggerBook.add(selected.getId(), kind, level, shares);
+        logToMarket(kind.getLabel() + " set on " + selected.getName() + " at $" + MONEY_FMT.format(level)
+            + (kind.isAlert() ? "" : " for " + shares + " shares"));
+        updateTriggerCount();
+    }
+
+    private void clearTriggers() {
+        Stock selected = selectedStock;
+        if (selected == null) {
+            logToMarket("No stock selected to clear triggers for.");
+            return;
+        }
+        int cancelled = triggerBook.cancelAll(selected.getId());
+        logToMarket("Cancelled " + cancelled + " trigger(s) on " + selected.getName());
+        updateTriggerCount();
+    }
+
+    /**
+     * Fills every trigger the stock's new price has crossed. Fills only touch cash
+     * and holdings; their log lines are collected for {@link #flushTriggerActivity}.
+     */
+    private void fireTriggers(Stock stock) {
+        int count = triggerBook.collectFired(stock.getId(), stock.getPrice());
+        String price = count > 0 ? MONEY_FMT.format(stock.getPrice()) : null;
+        for (int i = 0; i < count; i++) {
+            int trigger = triggerBook.getFired(i);
+            TriggerBook.Kind kind = triggerBook.getKind(trigger);
+            triggerLog.append(kind.getLabel()).append(" on ").append(stock.getName())
+                .append(" at $").append(MONEY_FMT.format(triggerBook.getLevel(trigger)))
+                .append(" fired (price $").append(price).append(')');
+            if (kind.isAlert()) {
+                triggerLog.append('\n');
+                continue;
+            }
+            int shares = Math.min(triggerBook.getShares(trigger), holdings[stock.getId()]);
+            if (shares <= 0) {
+                triggerLog.append(", but you hold no shares.\n");
+                continue;
+            }
+            triggerProceeds += fillSell(stock, shares);
+            triggerLog.append(": sold ").append(shares).append(" shares @ $").append(price).append('\n');
+        }
+    }
+
+    /** Publishes the trigger fills collected since the last flush in a single UI update. */
+    private void flushTriggerActivity() {
+        if (triggerLog.length() == 0) return;
+        marketLogArea.appendText(triggerLog.toString());
+        triggerLog.setLength(0);
+        if (triggerProceeds > 0) {
+            showSellAnimation(triggerProceeds);
+            triggerProceeds = 0;
+            updateMoneyLabels();
+        }
+        updateTriggerCount();
+    }
+
+    private void updateTriggerCount() {
+        triggerCountLabel.setText("Resting triggers: " + triggerBook.size());
+    }
+
+    private void tradeOption(boolean put, boolean buy) {
+        OptionRow row = optionTable.getSelectionModel().getSelectedItem();
+        if (row == null) {
+            logToMarket("No option selected to " + (buy ? "buy." : "sell."));
+            return;
+        }
+        int contract = put ? row.putContract : row.callContract;
+        int contracts;
+        try {
+            contracts = Integer.parseInt(buySellSharesField.getText().trim());
+        } catch (NumberFormatException ex) {
+            logToMarket("Invalid contract amount.");
+            return;
+        }
+        if (contracts <= 0) {
+            logToMarket("Invalid contract amount.");
+            return;
+        }
+        String label = describeContract(contract);
+        if (elapsedTicks() >= optionChain.getExpiryTick(contract)) {
+            logToMarket("The " + label + " has expired.");
+            return;
+        }
+        double premium = optionChain.getPrice(contract);
+        double total = contracts * premium * OPTION_CONTRACT_SIZE;
+        if (buy) {
+            if (total > playerMoney) {
+                logToMarket("Insufficient cash to buy " + contracts + " x " + label);
+                return;
+            }
+            playerMoney -= total;
+            optionHoldings[contract] += contracts;
+            heldContracts.add(contract);
+            showBuyAnimation(total);
+            logToMarket("Bought " + contracts + " x " + label + " @ $" + MONEY_FMT.format(premium));
+        } else {
+            int owned = optionHoldings[contract];
+            if (contracts > owned) {
+                logToMarket("You only own " + owned + " x " + label);
+                return;
+            }
+            playerMoney += total;
+            optionHoldings[contract] = owned - contracts;
+            if (optionHoldings[contract] == 0) {
+                heldContracts.remove(contract);
+            }
+            showSellAnimation(total);
+            logToMarket("Sold " + contracts + " x " + label + " @ $" + MONEY_FMT.format(premium));
+        }
+        updateMoneyLabels();
+    }
+
+    // ------------------------------------------------------------------------
+    // Options: Pricing & Expiry
+    // ------------------------------------------------------------------------
+    /** Lists chains on the catalog's optionable stocks only, so the chain stays small on large universes. */
+    private OptionChain createOptionChain() {
+        optionUnderlyings = catalog.getOptionable();
+        optionIndexOf = new int[stocks.size()];
+        Arrays.fill(optionIndexOf, -1);
+        double[] listingSpot = new double[optionUnderlyings.length];
+        for (int u = 0; u < optionUnderlyings.length; u++) {
+            optionIndexOf[optionUnderlyings[u]] = u;
+            listingSpot[u] = stocks.get(optionUnderlyings[u]).getPrice();
+        }
+        int[] expiryTicks = new int[OPTION_EXPIRY_MONTHS.length];
+        for (int i = 0; i < expiryTicks.length; i++) {
+            expiryTicks[i] = OPTION_EXPIRY_MONTHS[i] * SECONDS_PER_MONTH;
+        }
+        return new OptionChain(listingSpot, expiryTicks, TOTAL_TIME);
+    }
+
+    /**
+     * Reprices held and on-screen contracts now, and starts a background reprice
+     * of every listed chain unless the previous one is still running. The full
+     * chain is published back on the FX thread when it finishes.
+     */
+    private void repriceOptions() {
+        repriceLiveContracts();
+        if (optionChain.isFullRepriceInFlight()) return;
+
+        for (int u = 0; u < optionSpots.length; u++) {
+            optionSpots[u] = stocks.get(optionUnderlyings[u]).getPrice();
+        }
+        OptionChain.FullReprice job = optionChain.beginFullReprice(optionSpots, elapsedTicks());
+        CompletableFuture.runAsync(job).whenComplete((ignored, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                optionChain.discard(job);
+                logToMarket("Option chain repricing failed: " + ex.getMessage());
+                return;
+            }
+            optionChain.publish(job);
+            // The job priced from an older snapshot; bring the contracts in use back up to date
+            repriceLiveContracts();
+        }));
+    }
+
+    /** Reprices the held contracts and the selected stock's chain at current spot prices. */
+    private void repriceLiveContracts() {
+        int needed = heldContracts.size() + 2 * optionRows.size();
+        if (liveContracts.length < needed) {
+            liveContracts = new int[Math.max(needed, 2 * liveContracts.length)];
+        }
+        int n = 0;
+        for (int contract : heldContracts) {
+            liveContracts[n++] = contract;
+        }
+        for (OptionRow row : optionRows) {
+            liveContracts[n++] = row.callContract;
+            liveContracts[n++] = row.putContract;
+        }
+        for (int i = 0; i < n; i++) {
+            int underlying = optionChain.getUnderlying(liveContracts[i]);
+            optionSpots[underlying] = stocks.get(optionUnderlyings[underlying]).getPrice();
+        }
+        optionChain.repriceContracts(liveContracts, n, optionSpots, elapsedTicks());
+        optionTable.refresh();
+    }
+
+    /** Cash-settles held contracts at intrinsic value once their expiry has passed. */
+    private void settleExpiredOptions() {
+        int now = elapsedTicks();
+        boolean settled = false;
+        Iterator<Integer> it = heldContracts.iterator();
+        while (it.hasNext()) {
+            int contract = it.next();
+            if (optionChain.getExpiryTick(contract) > now) continue;
+            int contracts = optionHoldings[contract];
+            double spot = underlyingOf(contract).getPrice();
+            double payout = contracts * optionChain.intrinsic(contract, spot) * OPTION_CONTRACT_SIZE;
+            playerMoney += payout;
+            optionHoldings[contract] = 0;
+            it.remove();
+            settled = true;
+            logToMarket(contracts + " x " + describeContract(contract) + " expired, settled for $"
+                + MONEY_FMT.format(payout));
+        }
+        if (settled) {
+            updateMoneyLabels();
+        }
+    }
+
+    private double calculateOptionsValue() {
+        double total = 0;
+        for (int contract : heldContracts) {
+            total += optionHoldings[contract] * optionChain.getPrice(contract) * OPTION_CONTRACT_SIZE;
+        }
+        return total;
+    }
+
+    private String describeContract(int contract) {
+        return monthName(optionChain.getExpiryTick(contract) / SECONDS_PER_MONTH - 1)
+            + " $" + MONEY_FMT.format(optionChain.getStrike(contract))
+            + (optionChain.isPut(contract) ? " put on " : " call on ")
+            + underlyingOf(contract).getName();
+    }
+
+    private Stock underlyingOf(int contract) {
+        return stocks.get(optionUnderlyings[optionChain.getUnderlying(contract)]);
+    }
+
+    private int elapsedTicks() {
+        return TOTAL_TIME - totalTimeLeft;
     }
 
     // ------------------------------------------------------------------------
     // News & Price Impact
     // ------------------------------------------------------------------------
-    private void generateNewsEvent() {
+    void generateNewsEvent() {
         if (currentMonthIndex >= TOTAL_MONTHS) return;
-        String headline = possibleNews.get(random.nextInt(possibleNews.size()));
+        if (catalog.getNewsCount() == 0) return;
+        int newsIndex = random.nextInt(catalog.getNewsCount());
         Stock mainStock = stocks.get(random.nextInt(stocks.size()));
+        String headline = catalog.formatNews(newsIndex, mainStock.getName());
         boolean useGroup = random.nextBoolean();
+        int[] group = catalog.getRelated(mainStock.getId());
         List<Stock> impacted = new ArrayList<>();
-        if (useGroup && stockGroups.containsKey(mainStock.getName())) {
-            impacted.addAll(findStocksByNames(stockGroups.get(mainStock.getName())));
+        if (useGroup && group.length > 0) {
+            for (int id : group) {
+                impacted.add(stocks.get(id));
+            }
         } else {
             impacted.add(mainStock);
         }
@@ -606,23 +1449,74 @@ public class App extends Application {
     }
 
     private void applyNewsImpactOverTime(Stock stock, double totalImpact, int durationSeconds, int delaySeconds) {
-        double step = totalImpact / durationSeconds;
+        NewsImpact impact = new NewsImpact(stock, totalImpact / durationSeconds, durationSeconds);
+        pendingNewsImpacts.add(impact);
         Timeline timeline = new Timeline();
         for (int i = 1; i <= durationSeconds; i++) {
-            KeyFrame kf = new KeyFrame(Duration.seconds(delaySeconds + i), e -> {
-                double oldPrice = stock.getPrice();
-                double newPrice = oldPrice + step;
-                if (newPrice < 1) newPrice = 1;
-                stock.setPrice(newPrice);
-                stock.updateMovementIndicator(oldPrice, newPrice);
-                stock.getPriceHistory().add(new XYChart.Data<>(stock.nextHistoryCounter(), newPrice));
-                stockTable.refresh();
-            });
+            KeyFrame kf = new KeyFrame(Duration.seconds(delaySeconds + i), e -> applyNewsStep(impact));
             timeline.getKeyFrames().add(kf);
         }
         timeline.play();
     }
 
+    /** Applies one second's worth of a news impact; a no-op once all of it has been applied. */
+    private void applyNewsStep(NewsImpact impact) {
+        if (impact.remainingSteps == 0) return;
+        if (--impact.remainingSteps == 0) {
+            pendingNewsImpacts.remove(impact);
+        }
+        Stock stock = impact.stock;
+        double oldPrice = stock.getPrice();
+        double newPrice = oldPrice + impact.step;
+        if (newPrice < 1) newPrice = 1;
+        stock.setPrice(newPrice);
+        stock.updateMovementIndicator(oldPrice, newPrice);
+        tickStore.append(stock.getId(), stock.nextHistoryCounter(), newPrice);
+        onPriceChanged(stock);
+        refreshStockView();
+        flushTriggerActivity();
+        if (stock == selectedStock && (scrubberLive || fullHistoryBox.isSelected())) {
+            renderStockChart();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Scripted Driving (used by the headless UI benchmark)
+    // ------------------------------------------------------------------------
+    int getStockCount() {
+        return stocks.size();
+    }
+
+    /** Selects a stock and trades it through the same path as the Buy/Sell buttons. */
+    void scriptedTrade(int stockId, int shares, boolean buy) {
+        Stock stock = stocks.get(stockId);
+        if (stock != selectedStock) {
+            selectedStock = stock;
+            updateStockDetailPane(stock);
+        }
+        buySellSharesField.setText(Integer.toString(shares));
+        if (buy) {
+            buyShares(false);
+        } else {
+            sellShares(false);
+        }
+    }
+
+    /** Rebalances to the given target weights through the same path as the Rebalance button. */
+    void scriptedRebalance(int[] targets, double[] weights) {
+        rebalance(targets, weights, targets.length);
+    }
+
+    /**
+     * Applies the next step of every pending news impact now, skipping the
+     * timeline delay, so a scripted frame includes the impact's UI work.
+     */
+    void scriptedNewsStep() {
+        for (NewsImpact impact : new ArrayList<>(pendingNewsImpacts)) {
+            applyNewsStep(impact);
+        }
+    }
+
     // ------------------------------------------------------------------------
     // End Game
     // ------------------------------------------------------------------------
@@ -632,12 +1526,33 @@ public class App extends Application {
         double profit = finalNetWorth - startingMoney;
         logToMarket("Final Net Worth: $" + MONEY_FMT.format(finalNetWorth)
                 + " (P/L: $" + MONEY_FMT.format(profit) + ")");
+        logToMarket("Risk Report:\n" + formatRiskSummary(finalNetWorth));
         buySellSharesField.setDisable(true);
+        basketField.setDisable(true);
+        basketButton.setDisable(true);
+        rebalanceButton.setDisable(true);
+        triggerPriceField.setDisable(true);
+        stopLossButton.setDisable(true);
+        takeProfitButton.setDisable(true);
+        alertButton.setDisable(true);
+        clearTriggersButton.setDisable(true);
     }
 
     // ------------------------------------------------------------------------
     // Helpers
     // ------------------------------------------------------------------------
+    private void onPriceChanged(Stock stock) {
+        moversIndex.update(stock.getId(), stock.getPercentChange(), stock.getActivity());
+        int underlying = optionIndexOf[stock.getId()];
+        if (underlying >= 0) {
+            optionChain.observePrice(underlying, stock.getPrice());
+        }
+        // Prices keep moving after the final month, but resting orders no longer trade
+        if (currentMonthIndex < TOTAL_MONTHS) {
+            fireTriggers(stock);
+        }
+    }
+
     private void updateTimeLabels() {
         int minutes = totalTimeLeft / 60;
         int seconds = totalTimeLeft % 60;
@@ -656,17 +1571,36 @@ public class App extends Application {
     private void updateNetWorthChart() {
         double netWorth = calculateNetWorth();
         chartTimeCounter++;
-        netWorthSeries.getData().add(new XYChart.Data<>(chartTimeCounter, netWorth));
+        tickStore.append(netWorthSeriesId, chartTimeCounter, netWorth);
+        fillSeries(netWorthSeriesId, 1, chartTimeCounter, netWorthSeries);
+        riskAnalytics.update(netWorth);
+        riskLabel.setText(formatRiskSummary(netWorth));
         updateMoneyLabels();
     }
 
+    private String formatRiskSummary(double netWorth) {
+        return "Max Drawdown: " + formatPercent(riskAnalytics.getMaxDrawdown())
+            + "   Volatility (1 mo): " + formatPercent(riskAnalytics.getRollingVolatility())
+            + "\nSharpe: " + formatRatio(riskAnalytics.getSharpeRatio())
+            + "   Sortino: " + formatRatio(riskAnalytics.getSortinoRatio())
+            + "\nVaR 95% (1s): $" + MONEY_FMT.format(riskAnalytics.getHistoricalVaR() * netWorth) + " hist"
+            + " / $" + MONEY_FMT.format(riskAnalytics.getParametricVaR() * netWorth) + " param";
+    }
+
+    private String formatPercent(double fraction) {
+        return String.format("%.2f%%", fraction * 100);
+    }
+
+    private String formatRatio(double ratio) {
+        return Double.isNaN(ratio) ? "n/a" : String.format("%.2f", ratio);
+    }
+
     private double calculateNetWorth() {
         double total = playerMoney;
         for (Stock s : stocks) {
-            int owned = portfolio.getOrDefault(s.getName(), 0);
-            total += owned * s.getPrice();
+            total += holdings[s.getId()] * s.getPrice();
         }
-        return total;
+        return total + calculateOptionsValue();
     }
 
     private void updateMoneyLabels() {
@@ -700,57 +1634,19 @@ public class App extends Application {
         ft.play();
     }
 
-    private List<Stock> findStocksByNames(List<String> names) {
-        List<Stock> result = new ArrayList<>();
-        for (String nm : names) {
-            for (Stock s : stocks) {
-                if (s.getName().equals(nm)) {
-                    result.add(s);
-                    break;
-                }
-            }
-        }
-        return result;
-    }
-
     // ------------------------------------------------------------------------
     // Data Initialization
     // ------------------------------------------------------------------------
-    private void initPossibleNews() {
-        possibleNews.add("Major breakthrough in quantum thrusters!");
-        possibleNews.add("Terraform Inc unveils new gene-edited seeds for Mars.");
-        possibleNews.add("Space Tourism faces safety lawsuit after rocket mishap.");
-        possibleNews.add("Asteroid Mining Co finds massive platinum deposit.");
-        possibleNews.add("Lunar Energy Corp sees record demand for Helium-3.");
-        possibleNews.add("Orbital Transport invests in next-gen propulsion.");
-        possibleNews.add("Zero-G Manufacturing perfects 3D printing for space habitats.");
-        possibleNews.add("Galactic Commodities surges on rare metal shortage.");
-        possibleNews.add("Deep Space Tech announces AI-based navigation system.");
-        possibleNews.add("Quantum Computing Labs reveals advanced entangled processor.");
-    }
-
-    private void initStockGroups() {
-        stockGroups.put("Asteroid Mining Co", Arrays.asList("Lunar Energy Corp", "Galactic Commodities"));
-        stockGroups.put("Terraform Inc", Arrays.asList("Mars Real Estate", "Space Tourism"));
-        stockGroups.put("Deep Space Tech", Arrays.asList("Orbital Transport", "Quantum Computing Labs"));
-    }
-
     private ObservableList<Stock> generateStocks() {
-        List<Stock> list = new ArrayList<>();
-        list.add(new Stock("Asteroid Mining Co", randomPrice(100, 300), "Provides mining services on asteroids."));
-        list.add(new Stock("Mars Real Estate", randomPrice(150, 400), "Develops real estate on Mars."));
-        list.add(new Stock("Space Tourism", randomPrice(80, 200), "Offers leisure trips to space."));
-        list.add(new Stock("Galactic Commodities", randomPrice(90, 250), "Trades rare commodities across galaxies."));
-        list.add(new Stock("Lunar Energy Corp", randomPrice(60, 150), "Generates energy using lunar resources."));
-        list.add(new Stock("Orbital Transport", randomPrice(120, 350), "Provides transportation in orbit."));
-        list.add(new Stock("Terraform Inc", randomPrice(200, 500), "Works on terraforming planets."));
-        list.add(new Stock("Deep Space Tech", randomPrice(70, 220), "Develops advanced deep-space technology."));
-        list.add(new Stock("Zero-G Manufacturing", randomPrice(100, 250), "Manufactures goods in zero gravity."));
-        list.add(new Stock("Quantum Computing Labs", randomPrice(180, 400), "Pioneers quantum computing for space apps."));
+        // Stock ids match catalog ids, so stocks.get(id) is the instrument with that id
+        List<Stock> list = new ArrayList<>(catalog.size());
+        for (int id = 0; id < catalog.size(); id++) {
+            list.add(new Stock(id, randomPrice(catalog.getMinPrice(id), catalog.getMaxPrice(id))));
+        }
         return FXCollections.observableArrayList(list);
     }
 
-    private double randomPrice(int min, int max) {
+    private double randomPrice(double min, double max) {
         return min + (max - min) * random.nextDouble();
     }
 
@@ -758,28 +1654,41 @@ public class App extends Application {
     // Inner Class: Stock
     // ------------------------------------------------------------------------
     public class Stock {
+        private int id;
         private String name;
         private double price;
         private double initialPrice;
-        private String movementIndicator;
-        private String description;
-        private ObservableList<XYChart.Data<Number, Number>> priceHistory = FXCollections.observableArrayList();
+        private double lastMove;
+        private double activity;
         private int historyCounter = 0;
 
-        public Stock(String name, double price, String description) {
-            this.name = name;
+        public Stock(int id, double price) {
+            this.id = id;
+            this.name = catalog.getName(id);
             this.price = price;
             this.initialPrice = price;
-            this.description = description;
-            this.movementIndicator = "";
-            priceHistory.add(new XYChart.Data<>(historyCounter++, price));
+            this.lastMove = Double.NaN;
+            tickStore.append(id, historyCounter++, price);
         }
 
+        public int getId() { return id; }
         public String getName() { return name; }
         public double getPrice() { return price; }
-        public String getMovementIndicator() { return movementIndicator; }
-        public String getDescription() { return description; }
-        public ObservableList<XYChart.Data<Number, Number>> getPriceHistory() { return priceHistory; }
+        public double getActivity() { return activity; }
+        public double getPercentChange() { return ((price - initialPrice) / initialPrice) * 100; }
+
+        // Formatted on demand so off-page stocks never pay for it
+        public String getMovementIndicator() {
+            if (Double.isNaN(lastMove)) {
+                return "";
+            } else if (lastMove > 0) {
+                return String.format("+%.2f", lastMove);
+            } else if (lastMove < 0) {
+                return String.format("%.2f", lastMove);
+            }
+            return "0.00";
+        }
+        public String getDescription() { return catalog.getDescription(id); }
 
         public void setPrice(double newPrice) {
             this.price = newPrice;
@@ -791,30 +1700,63 @@ public class App extends Application {
             price += move;
             if (price < 1) price = 1;
             updateMovementIndicator(oldPrice, price);
-            priceHistory.add(new XYChart.Data<>(historyCounter++, price));
-            if (priceHistory.size() > 200) {
-                priceHistory.remove(0);
-            }
+            tickStore.append(id, historyCounter++, price);
         }
 
         public void updateMovementIndicator(double oldP, double newP) {
-            double diff = newP - oldP;
-            if (diff > 0) {
-                movementIndicator = String.format("+%.2f", diff);
-            } else if (diff < 0) {
-                movementIndicator = String.format("%.2f", diff);
-            } else {
-                movementIndicator = "0.00";
-            }
+            lastMove = newP - oldP;
+            double movePct = oldP != 0 ? Math.abs(lastMove) / oldP * 100 : 0;
+            activity += ACTIVITY_SMOOTHING * (movePct - activity);
         }
 
         public SimpleStringProperty percentChangeProperty() {
-            double pctChange = ((price - initialPrice) / initialPrice) * 100;
-            return new SimpleStringProperty(String.format("%.2f%%", pctChange));
+            return new SimpleStringProperty(String.format("%.2f%%", getPercentChange()));
         }
 
         public int nextHistoryCounter() {
             return historyCounter++;
         }
     }
+
+    // ------------------------------------------------------------------------
+    // Inner Class: NewsImpact (a news price move spread over several seconds)
+    // ------------------------------------------------------------------------
+    private static class NewsImpact {
+        private final Stock stock;
+        private final double step;
+        private int remainingSteps;
+
+        NewsImpact(Stock stock, double step, int steps) {
+            this.stock = stock;
+            this.step = step;
+            this.remainingSteps = steps;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Inner Class: OptionRow (one expiry/strike line of a chain)
+    // ------------------------------------------------------------------------
+    public class OptionRow {
+        private final int callContract;
+        private final int putContract;
+
+        public OptionRow(int underlying, int expiryIndex, int strikeIndex) {
+            this.callContract = optionChain.contractId(underlying, expiryIndex, strikeIndex, false);
+            this.putContract = optionChain.contractId(underlying, expiryIndex, strikeIndex, true);
+        }
+
+        public String getExpiry() {
+            return monthName(optionChain.getExpiryTick(callContract) / SECONDS_PER_MONTH - 1).substring(0, 3);
+        }
+        public String getStrike() { return MONEY_FMT.format(optionChain.getStrike(callContract)); }
+        public String getCall() { return MONEY_FMT.format(optionChain.getPrice(callContract)); }
+        public String getPut() { return MONEY_FMT.format(optionChain.getPrice(putContract)); }
+        public String getDelta() {
+            return String.format("%.2f/%.2f", optionChain.getDelta(callContract), optionChain.getDelta(putContract));
+        }
+        public String getGamma() { return String.format("%.4f", optionChain.getGamma(callContract)); }
+        // Per vol point and per game month, which read more naturally than per 1.00 and per year
+        public String getVega() { return String.format("%.2f", optionChain.getVega(callContract) / 100); }
+        public String getTheta() { return String.format("%.2f", optionChain.getTheta(callContract) / TOTAL_MONTHS); }
+    }
 }
@@ -0,0 +1,154 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * A set of share orders across many instruments that executes all-or-nothing.
+ *
+ * Legs are kept in parallel primitive arrays with one leg per instrument, so
+ * adding a second order for the same name nets into the existing leg. {@link
+ * #execute} prices every leg from one snapshot, checks holdings and the net cash
+ * requirement once for the whole basket and only then applies the fills, so a
+ * rejected basket leaves the portfolio untouched.
+ */
+public class Basket {
+
+    private final InstrumentCatalog catalog;
+    private final int[] legOf;                 // instrument id -> leg index, -1 when absent
+
+    // Legs, in the order they were first added
+    private int[] instrument = new int[16];
+    private int[] shares = new int[16];        // Signed: positive buys, negative sells
+    private double[] price = new double[16];   // Snapshot taken by execute
+    private int size = 0;
+
+    private double boughtValue = 0;
+    private double soldValue = 0;
+
+    public Basket(InstrumentCatalog catalog) {
+        this.catalog = catalog;
+        this.legOf = new int[catalog.size()];
+        Arrays.fill(legOf, -1);
+    }
+
+    /**
+     * Builds the basket that moves a portfolio to the given target weights of its
+     * total value (cash plus stock). Held names missing from the targets are sold
+     * out, and target share counts round down so the buys always fit the value.
+     *
+     * @param targets distinct instrument ids, {@code count} long
+     * @param weights fraction of total value for each target; must sum to at most 1
+     */
+    public static Basket rebalance(InstrumentCatalog catalog, int[] holdings, IntToDoubleFunction priceOf,
+                                   double cash, int[] targets, double[] weights, int count) {
+        Basket basket = new Basket(catalog);
+        double weightSum = 0;
+        for (int i = 0; i < count; i++) {
+            if (!(weights[i] >= 0)) {
+                throw new IllegalArgumentException("Negative weight for " + catalog.getName(targets[i]));
+            }
+            if (basket.legOf[targets[i]] >= 0) {
+                throw new IllegalArgumentException(catalog.getName(targets[i]) + " is listed more than once");
+            }
+            basket.add(targets[i], 0); // Claims the leg so duplicates are caught
+            weightSum += weights[i];
+        }
+        if (weightSum > 1 + 1e-9) {
+            throw new IllegalArgumentException(String.format("Target weights add up to %.1f%%", weightSum * 100));
+        }
+
+        double value = cash;
+        for (int id = 0; id < holdings.length; id++) {
+            if (holdings[id] != 0) {
+                value += holdings[id] * priceOf.applyAsDouble(id);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int id = targets[i];
+            double targetShares = Math.floor(weights[i] * value / priceOf.applyAsDouble(id));
+            basket.add(id, (int) Math.min(Integer.MAX_VALUE, targetShares) - holdings[id]);
+        }
+        for (int id = 0; id < holdings.length; id++) {
+            if (holdings[id] > 0 && basket.legOf[id] < 0) {
+                basket.add(id, -holdings[id]);
+            }
+        }
+        return basket;
+    }
+
+    // ------------------------------------------------------------------------
+    // Legs
+    // ------------------------------------------------------------------------
+
+    /** Adds an order for {@code shareDelta} shares (negative to sell), netting into any existing leg. */
+    public void add(int instrumentId, int shareDelta) {
+        int leg = legOf[instrumentId];
+        if (leg < 0) {
+            if (size == instrument.length) {
+                int cap = size * 2;
+                instrument = Arrays.copyOf(instrument, cap);
+                shares = Arrays.copyOf(shares, cap);
+                price = Arrays.copyOf(price, cap);
+            }
+            leg = size++;
+            legOf[instrumentId] = leg;
+            instrument[leg] = instrumentId;
+            shares[leg] = 0;
+        }
+        shares[leg] += shareDelta;
+    }
+
+    /** Number of legs, including any that netted out to zero shares. */
+    public int size() { return size; }
+
+    public int getInstrument(int leg) { return instrument[leg]; }
+    public int getShares(int leg) { return shares[leg]; }
+    /** Price the leg filled at; valid after a successful {@link #execute}. */
+    public double getPrice(int leg) { return price[leg]; }
+
+    public double getBoughtValue() { return boughtValue; }
+    public double getSoldValue() { return soldValue; }
+
+    // ------------------------------------------------------------------------
+    // Execution
+    // ------------------------------------------------------------------------
+
+    /**
+     * Fills every leg at one price snapshot and applies the result to
+     * {@code holdings}. Sales fund purchases within the basket.
+     *
+     * @return the cash balance after the basket
+     * @throws IllegalArgumentException if a sale exceeds the shares held or the
+     *         net cost exceeds {@code cash}; nothing is applied in that case
+     */
+    public double execute(int[] holdings, double cash, IntToDoubleFunction priceOf) {
+        double buys = 0;
+        double sells = 0;
+        for (int leg = 0; leg < size; leg++) {
+            int id = instrument[leg];
+            int delta = shares[leg];
+            price[leg] = priceOf.applyAsDouble(id);
+            if (delta >= 0) {
+                buys += delta * price[leg];
+            } else if (-delta > holdings[id]) {
+                throw new IllegalArgumentException("You only own " + holdings[id] + " shares of "
+                    + catalog.getName(id) + " (basket sells " + -delta + ")");
+            } else {
+                sells -= delta * price[leg];
+            }
+        }
+        if (buys - sells > cash) {
+            throw new IllegalArgumentException(String.format("Insufficient cash: basket needs $%,.2f net, cash is $%,.2f",
+                buys - sells, cash));
+        }
+
+        for (int leg = 0; leg < size; leg++) {
+            holdings[instrument[leg]] += shares[leg];
+        }
+        boughtValue = buys;
+        soldValue = sells;
+        return cash - buys + sells;
+    }
+}
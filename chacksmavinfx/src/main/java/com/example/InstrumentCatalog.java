@@ -0,0 +1,322 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instruments, sectors, groups, option listings and news templates loaded from a
+ * catalog file.
+ *
+ * Names are interned to dense int ids while loading, so the simulation can work
+ * purely with ids and primitive arrays. Descriptions and news headlines are kept
+ * as byte ranges into the raw file and only decoded the first time they are
+ * asked for, which keeps startup fast for universes with 100k+ instruments.
+ */
+public class InstrumentCatalog {
+
+    private static final String DEFAULT_RESOURCE = "/com/example/catalog.txt";
+    private static final String STOCK_PLACEHOLDER = "{stock}";
+    private static final char FIELD_SEPARATOR = '|';
+
+    private final byte[] raw;
+
+    // Instruments, indexed by id
+    private int instrumentCount = 0;
+    private String[] names = new String[64];
+    private int[] sectorOf = new int[64];
+    private double[] minPrice = new double[64];
+    private double[] maxPrice = new double[64];
+    private int[] descOffset = new int[64];
+    private int[] descLength = new int[64];
+    private String[] descriptions;
+    private int[][] related;
+    private int[] optionable;                  // Ids with a listed option chain, ascending
+    private final Map<String, Integer> idByName = new HashMap<>();
+
+    // Sectors, indexed by sector id
+    private final List<String> sectorNames = new ArrayList<>();
+    private final Map<String, Integer> sectorIdByName = new HashMap<>();
+
+    // News templates
+    private int newsCount = 0;
+    private int[] newsOffset = new int[16];
+    private int[] newsLength = new int[16];
+    private String[] newsTemplates;
+
+    private InstrumentCatalog(byte[] raw) {
+        this.raw = raw;
+    }
+
+    // ------------------------------------------------------------------------
+    // Loading
+    // ------------------------------------------------------------------------
+
+    /**
+     * Loads the catalog named by the {@code catalog} system property, or the
+     * bundled catalog when the property is not set.
+     */
+    public static InstrumentCatalog loadDefault() {
+        String path = System.getProperty("catalog");
+        if (path != null && !path.isEmpty()) {
+            return load(Path.of(path));
+        }
+        try (InputStream in = InstrumentCatalog.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing bundled catalog " + DEFAULT_RESOURCE);
+            }
+            return parse(in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read bundled catalog", e);
+        }
+    }
+
+    public static InstrumentCatalog load(Path path) {
+        try {
+            return parse(Files.readAllBytes(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read catalog " + path, e);
+        }
+    }
+
+    public static InstrumentCatalog parse(byte[] raw) {
+        InstrumentCatalog catalog = new InstrumentCatalog(raw);
+        List<int[]> groupLines = new ArrayList<>();
+        List<int[]> optionLines = new ArrayList<>();
+        int lineNo = 0;
+        int pos = 0;
+        int[] fields = new int[12]; // start/end pairs of up to 6 fields
+        while (pos < raw.length) {
+            int end = pos;
+            while (end < raw.length && raw[end] != '\n') end++;
+            int lineEnd = end > pos && raw[end - 1] == '\r' ? end - 1 : end;
+            lineNo++;
+            int first = pos;
+            while (first < lineEnd && (raw[first] == ' ' || raw[first] == '\t')) first++;
+            if (first < lineEnd && raw[first] != '#') {
+                int n = splitFields(raw, first, lineEnd, fields);
+                catalog.addRecord(fields, n, lineNo, groupLines, optionLines);
+            }
+            pos = end + 1;
+        }
+        if (catalog.instrumentCount == 0) {
+            throw new IllegalArgumentException("Catalog defines no instruments");
+        }
+        catalog.resolveGroups(groupLines);
+        catalog.resolveOptions(optionLines);
+        catalog.descriptions = new String[catalog.instrumentCount];
+        catalog.newsTemplates = new String[catalog.newsCount];
+        return catalog;
+    }
+
+    private static int splitFields(byte[] raw, int start, int end, int[] fields) {
+        int n = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end && n < fields.length / 2; i++) {
+            boolean lastField = n == fields.length / 2 - 1;
+            if (i == end || (raw[i] == FIELD_SEPARATOR && !lastField)) {
+                fields[2 * n] = fieldStart;
+                fields[2 * n + 1] = i;
+                n++;
+                fieldStart = i + 1;
+            }
+        }
+        return n;
+    }
+
+    private void addRecord(int[] f, int n, int lineNo, List<int[]> groupLines, List<int[]> optionLines) {
+        // Compare the record type in place so the common path allocates no key strings
+        if (fieldIs(f[0], f[1], "stock")) {
+            expectFields(n, 6, lineNo);
+            addInstrument(f, lineNo);
+        } else if (fieldIs(f[0], f[1], "group")) {
+            expectFields(n, 3, lineNo);
+            groupLines.add(new int[] { f[2], f[3], f[4], f[5], lineNo });
+        } else if (fieldIs(f[0], f[1], "options")) {
+            expectFields(n, 2, lineNo);
+            optionLines.add(new int[] { f[2], f[3], lineNo });
+        } else if (fieldIs(f[0], f[1], "sector")) {
+            expectFields(n, 2, lineNo);
+            sectorId(text(f[2], f[3]));
+        } else if (fieldIs(f[0], f[1], "news")) {
+            expectFields(n, 2, lineNo);
+            if (newsCount == newsOffset.length) {
+                newsOffset = Arrays.copyOf(newsOffset, newsCount * 2);
+                newsLength = Arrays.copyOf(newsLength, newsCount * 2);
+            }
+            newsOffset[newsCount] = f[2];
+            newsLength[newsCount] = f[3] - f[2];
+            newsCount++;
+        } else {
+            throw new IllegalArgumentException("Catalog line " + lineNo + ": unknown record type '"
+                    + text(f[0], f[1]) + "'");
+        }
+    }
+
+    private boolean fieldIs(int start, int end, String ascii) {
+        if (end - start != ascii.length()) return false;
+        for (int i = 0; i < ascii.length(); i++) {
+            if (raw[start + i] != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void addInstrument(int[] f, int lineNo) {
+        String name = text(f[2], f[3]);
+        if (idByName.containsKey(name)) {
+            throw new IllegalArgumentException("Catalog line " + lineNo + ": duplicate instrument '" + name + "'");
+        }
+        int id = instrumentCount;
+        if (id == names.length) {
+            int cap = id * 2;
+            names = Arrays.copyOf(names, cap);
+            sectorOf = Arrays.copyOf(sectorOf, cap);
+            minPrice = Arrays.copyOf(minPrice, cap);
+            maxPrice = Arrays.copyOf(maxPrice, cap);
+            descOffset = Arrays.copyOf(descOffset, cap);
+            descLength = Arrays.copyOf(descLength, cap);
+        }
+        double min;
+        double max;
+        try {
+            min = Double.parseDouble(text(f[6], f[7]).trim());
+            max = Double.parseDouble(text(f[8], f[9]).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Catalog line " + lineNo + ": invalid price range for '" + name + "'");
+        }
+        // Prices must be positive: % change and every ranking divide by the initial price
+        if (!(min > 0 && min <= max && max < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Catalog line " + lineNo + ": price range for '" + name
+                    + "' must satisfy 0 < min <= max");
+        }
+        names[id] = name;
+        sectorOf[id] = sectorId(text(f[4], f[5]));
+        minPrice[id] = min;
+        maxPrice[id] = max;
+        descOffset[id] = f[10];
+        descLength[id] = f[11] - f[10];
+        idByName.put(name, id);
+        instrumentCount++;
+    }
+
+    private void resolveGroups(List<int[]> groupLines) {
+        related = new int[instrumentCount][];
+        for (int[] g : groupLines) {
+            int lineNo = g[4];
+            int owner = requireId(text(g[0], g[1]), lineNo);
+            String[] members = text(g[2], g[3]).split(",");
+            int[] ids = new int[members.length];
+            for (int i = 0; i < members.length; i++) {
+                ids[i] = requireId(members[i].trim(), lineNo);
+            }
+            related[owner] = ids;
+        }
+    }
+
+    private void resolveOptions(List<int[]> optionLines) {
+        boolean[] listed = new boolean[instrumentCount];
+        int count = 0;
+        for (int[] o : optionLines) {
+            for (String member : text(o[0], o[1]).split(",")) {
+                int id = requireId(member.trim(), o[2]);
+                if (!listed[id]) {
+                    listed[id] = true;
+                    count++;
+                }
+            }
+        }
+        optionable = new int[count];
+        int n = 0;
+        for (int id = 0; id < instrumentCount; id++) {
+            if (listed[id]) optionable[n++] = id;
+        }
+    }
+
+    private int requireId(String name, int lineNo) {
+        Integer id = idByName.get(name);
+        if (id == null) {
+            throw new IllegalArgumentException("Catalog line " + lineNo + ": unknown instrument '" + name + "'");
+        }
+        return id;
+    }
+
+    private int sectorId(String name) {
+        Integer id = sectorIdByName.get(name);
+        if (id == null) {
+            id = sectorNames.size();
+            sectorNames.add(name);
+            sectorIdByName.put(name, id);
+        }
+        return id;
+    }
+
+    private static void expectFields(int actual, int expected, int lineNo) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Catalog line " + lineNo + ": expected " + expected
+                    + " fields but found " + actual);
+        }
+    }
+
+    private String text(int start, int end) {
+        return new String(raw, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // ------------------------------------------------------------------------
+    // Lookups
+    // ------------------------------------------------------------------------
+    public int size() { return instrumentCount; }
+    public String getName(int id) { return names[id]; }
+    public int getSector(int id) { return sectorOf[id]; }
+    public String getSectorName(int sectorId) { return sectorNames.get(sectorId); }
+    public int getSectorCount() { return sectorNames.size(); }
+    public double getMinPrice(int id) { return minPrice[id]; }
+    public double getMaxPrice(int id) { return maxPrice[id]; }
+
+    /** Returns the id for a name, or -1. Meant for user input, not the per-tick path. */
+    public int idOf(String name) {
+        Integer id = idByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /** Instruments moved together with {@code id} by group news; empty if none. */
+    public int[] getRelated(int id) {
+        int[] ids = related[id];
+        return ids == null ? new int[0] : ids;
+    }
+
+    /**
+     * Instruments that have a listed option chain, in ascending id order. Only
+     * names named by an {@code options} record are listed, which bounds the size
+     * of the chain on large universes.
+     */
+    public int[] getOptionable() { return optionable.clone(); }
+
+    public String getDescription(int id) {
+        String desc = descriptions[id];
+        if (desc == null) {
+            desc = text(descOffset[id], descOffset[id] + descLength[id]);
+            descriptions[id] = desc;
+        }
+        return desc;
+    }
+
+    public int getNewsCount() { return newsCount; }
+
+    /** Headline {@code index} with any {@code {stock}} placeholder filled in. */
+    public String formatNews(int index, String stockName) {
+        String template = newsTemplates[index];
+        if (template == null) {
+            template = text(newsOffset[index], newsOffset[index] + newsLength[index]);
+            newsTemplates[index] = template;
+        }
+        return template.replace(STOCK_PLACEHOLDER, stockName);
+    }
+}
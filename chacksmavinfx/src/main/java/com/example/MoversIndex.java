@@ -0,0 +1,384 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Incrementally maintained rankings of instruments by % change and activity.
+ *
+ * Each ranking is an indexed binary heap over instrument ids, so a price change
+ * costs O(log n) for that instrument only and nothing is re-sorted per tick.
+ * The first pages of a ranking are read with a best-first walk of the heap, which
+ * touches O(k log k) nodes for the first k results instead of the whole universe.
+ * Deeper pages read from a fully ranked snapshot of the ids that is re-sorted at
+ * most once per batch of updates and repaired in place when only a few
+ * instruments moved, so a page costs the same wherever it sits.
+ */
+public class MoversIndex {
+
+    private static final int WALK_LIMIT = 256;    // Deepest rank served by the heap walk
+    private static final int REPAIR_LIMIT = 64;   // Updates repaired into the snapshot before a full re-sort
+
+    public enum Ranking { GAINERS, LOSERS, MOST_ACTIVE }
+
+    private final RankHeap gainers;
+    private final RankHeap losers;
+    private final RankHeap mostActive;
+
+    public MoversIndex(int capacity) {
+        gainers = new RankHeap(capacity, true);
+        losers = new RankHeap(capacity, false);
+        mostActive = new RankHeap(capacity, true);
+    }
+
+    /** Inserts or repositions one instrument after its price changed. */
+    public void update(int id, double percentChange, double activity) {
+        gainers.update(id, percentChange);
+        losers.update(id, percentChange);
+        mostActive.update(id, activity);
+    }
+
+    public int size() {
+        return gainers.size;
+    }
+
+    /** Ranking key last recorded for {@code id}. */
+    public double key(Ranking ranking, int id) {
+        return heap(ranking).keys[id];
+    }
+
+    /**
+     * Writes the ids ranked {@code offset .. offset+limit-1} among instruments
+     * accepted by {@code filter} (null accepts all) into {@code out}.
+     *
+     * @return number of ids written
+     */
+    public int fetch(Ranking ranking, IntPredicate filter, int offset, int limit, int[] out) {
+        RankHeap heap = heap(ranking);
+        if ((long) offset + limit <= WALK_LIMIT) {
+            return heap.walk(filter, offset, limit, out);
+        }
+        return heap.scanRanked(filter, offset, limit, out);
+    }
+
+    /**
+     * Like {@link #fetch}, but ranks an explicit candidate list by sorting it.
+     * Cheaper than walking the heap when a filter keeps only a few instruments.
+     * Uses the same ordering as {@link #fetch}, so both agree on every page.
+     */
+    public int fetchFrom(Ranking ranking, int[] candidates, int count, int offset, int limit, int[] out) {
+        RankHeap heap = heap(ranking);
+        int[] sorted = Arrays.copyOf(candidates, count);
+        heap.sort(sorted, count);
+        int written = 0;
+        for (int i = offset; i < count && written < limit; i++) {
+            out[written++] = sorted[i];
+        }
+        return written;
+    }
+
+    private RankHeap heap(Ranking ranking) {
+        switch (ranking) {
+            case GAINERS: return gainers;
+            case LOSERS: return losers;
+            default: return mostActive;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Indexed binary heap over instrument ids
+    // ------------------------------------------------------------------------
+    private static class RankHeap {
+        private final boolean descending;
+        private final double[] keys;   // by id
+        private final int[] pos;       // id -> heap slot, -1 when absent
+        private final int[] heap;      // heap slot -> id
+        private int size = 0;
+
+        // Scratch frontier for best-first walks, reused across calls
+        private int[] frontier = new int[64];
+
+        // Every id in rank order, for deep pages. Ids updated since it was sorted
+        // are recorded (and marked) until there are too many to repair.
+        private final int[] ranked;
+        private boolean rankedStale = true;
+        private final int[] touched = new int[REPAIR_LIMIT];
+        private final boolean[] touchedMark;
+        private int touchedCount = 0;
+        private int[] sortScratch = new int[0];
+        private long[] radixKeys;          // Radix buffers, allocated on the first deep page
+        private long[] radixKeysOut;
+        private int[] radixIdsOut;
+
+        RankHeap(int capacity, boolean descending) {
+            this.descending = descending;
+            this.keys = new double[capacity];
+            this.pos = new int[capacity];
+            this.heap = new int[capacity];
+            this.ranked = new int[capacity];
+            this.touchedMark = new boolean[capacity];
+            Arrays.fill(pos, -1);
+        }
+
+        void update(int id, double key) {
+            keys[id] = key;
+            int slot = pos[id];
+            if (slot < 0) {
+                slot = size++;
+                heap[slot] = id;
+                pos[id] = slot;
+                rankedStale = true;
+            }
+            siftUp(slot);
+            siftDown(pos[id]);
+
+            if (!rankedStale && !touchedMark[id]) {
+                if (touchedCount == REPAIR_LIMIT) {
+                    rankedStale = true;
+                } else {
+                    touchedMark[id] = true;
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+
+        /** True if id a ranks ahead of id b. Ties break by id so order is stable. */
+        private boolean before(int a, int b) {
+            double ka = keys[a];
+            double kb = keys[b];
+            if (ka != kb) return descending ? ka > kb : ka < kb;
+            return a < b;
+        }
+
+        // --------------------------------------------------------------------
+        // Sorted snapshot for deep pages
+        // --------------------------------------------------------------------
+
+        /** Reads a page from the ranked snapshot, bringing it up to date first. */
+        int scanRanked(IntPredicate filter, int offset, int limit, int[] out) {
+            refreshRanked();
+            int written = 0;
+            if (filter == null) {
+                for (int i = offset; i < size && written < limit; i++) {
+                    out[written++] = ranked[i];
+                }
+                return written;
+            }
+            int matched = 0;
+            for (int i = 0; i < size && written < limit; i++) {
+                int id = ranked[i];
+                if (filter.test(id)) {
+                    if (matched >= offset) {
+                        out[written++] = id;
+                    }
+                    matched++;
+                }
+            }
+            return written;
+        }
+
+        private void refreshRanked() {
+            if (rankedStale) {
+                radixRank();
+            } else if (touchedCount > 0) {
+                // Drop the moved ids; the rest keep their relative order
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    int id = ranked[i];
+                    if (!touchedMark[id]) ranked[kept++] = id;
+                }
+                // Re-insert each one at its new rank
+                for (int t = 0; t < touchedCount; t++) {
+                    int id = touched[t];
+                    int lo = 0;
+                    int hi = kept;
+                    while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if (before(ranked[mid], id)) lo = mid + 1; else hi = mid;
+                    }
+                    System.arraycopy(ranked, lo, ranked, lo + 1, kept - lo);
+                    ranked[lo] = id;
+                    kept++;
+                }
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                touchedMark[touched[t]] = false;
+            }
+            touchedCount = 0;
+            rankedStale = false;
+        }
+
+        /**
+         * Re-sorts the snapshot from scratch: a stable LSD radix sort on the
+         * order-preserving bits of each key, fed ids in ascending order so ties
+         * come out by id exactly as {@link #before} orders them.
+         */
+        private void radixRank() {
+            if (radixKeys == null) {
+                radixKeys = new long[ranked.length];
+                radixKeysOut = new long[ranked.length];
+                radixIdsOut = new int[ranked.length];
+            }
+            long[] k = radixKeys;
+            int[] ids = ranked;
+            int n = 0;
+            for (int id = 0; id < pos.length; id++) {
+                if (pos[id] < 0) continue;
+                double key = (descending ? -keys[id] : keys[id]) + 0.0; // Folds -0.0 into 0.0
+                long bits = Double.doubleToLongBits(key);
+                k[n] = bits >= 0 ? bits ^ Long.MIN_VALUE : ~bits;
+                ids[n++] = id;
+            }
+            long[] kOut = radixKeysOut;
+            int[] idsOut = radixIdsOut;
+            int[] counts = new int[257];
+            for (int shift = 0; shift < 64; shift += 8) {
+                Arrays.fill(counts, 0);
+                for (int i = 0; i < n; i++) {
+                    counts[(int) ((k[i] >>> shift) & 0xff) + 1]++;
+                }
+                if (counts[(int) ((k[0] >>> shift) & 0xff) + 1] == n) continue; // Byte is the same everywhere
+                for (int b = 0; b < 256; b++) {
+                    counts[b + 1] += counts[b];
+                }
+                for (int i = 0; i < n; i++) {
+                    int dest = counts[(int) ((k[i] >>> shift) & 0xff)]++;
+                    kOut[dest] = k[i];
+                    idsOut[dest] = ids[i];
+                }
+                long[] kt = k; k = kOut; kOut = kt;
+                int[] it = ids; ids = idsOut; idsOut = it;
+            }
+            if (ids != ranked) {
+                System.arraycopy(ids, 0, ranked, 0, n);
+            }
+        }
+
+        /** Sorts {@code ids[0..count)} into rank order (merge sort on full-precision keys). */
+        void sort(int[] ids, int count) {
+            if (sortScratch.length < count) {
+                sortScratch = new int[count];
+            }
+            mergeSort(ids, sortScratch, 0, count);
+        }
+
+        private void mergeSort(int[] ids, int[] scratch, int from, int to) {
+            if (to - from <= 16) {
+                for (int i = from + 1; i < to; i++) {
+                    int id = ids[i];
+                    int j = i - 1;
+                    while (j >= from && before(id, ids[j])) {
+                        ids[j + 1] = ids[j];
+                        j--;
+                    }
+                    ids[j + 1] = id;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(ids, scratch, from, mid);
+            mergeSort(ids, scratch, mid, to);
+            if (!before(ids[mid], ids[mid - 1])) return; // Halves already in order
+            System.arraycopy(ids, from, scratch, from, to - from);
+            int i = from;
+            int j = mid;
+            for (int k = from; k < to; k++) {
+                if (j >= to || (i < mid && !before(scratch[j], scratch[i]))) {
+                    ids[k] = scratch[i++];
+                } else {
+                    ids[k] = scratch[j++];
+                }
+            }
+        }
+
+        private void siftUp(int slot) {
+            int id = heap[slot];
+            while (slot > 0) {
+                int parent = (slot - 1) >>> 1;
+                int pid = heap[parent];
+                if (!before(id, pid)) break;
+                heap[slot] = pid;
+                pos[pid] = slot;
+                slot = parent;
+            }
+            heap[slot] = id;
+            pos[id] = slot;
+        }
+
+        private void siftDown(int slot) {
+            int id = heap[slot];
+            while (true) {
+                int child = 2 * slot + 1;
+                if (child >= size) break;
+                if (child + 1 < size && before(heap[child + 1], heap[child])) child++;
+                int cid = heap[child];
+                if (!before(cid, id)) break;
+                heap[slot] = cid;
+                pos[cid] = slot;
+                slot = child;
+            }
+            heap[slot] = id;
+            pos[id] = slot;
+        }
+
+        /**
+         * Visits heap slots in rank order by keeping the frontier of unvisited
+         * children in a small heap of its own.
+         */
+        int walk(IntPredicate filter, int offset, int limit, int[] out) {
+            if (size == 0 || limit <= 0) return 0;
+            int frontierSize = 0;
+            frontier[frontierSize++] = 0;
+            int matched = 0;
+            int written = 0;
+            while (frontierSize > 0 && written < limit) {
+                // Pop the best slot from the frontier
+                int slot = frontier[0];
+                frontier[0] = frontier[--frontierSize];
+                frontierDown(0, frontierSize);
+
+                int id = heap[slot];
+                if (filter == null || filter.test(id)) {
+                    if (matched >= offset) {
+                        out[written++] = id;
+                    }
+                    matched++;
+                }
+                int child = 2 * slot + 1;
+                for (int c = child; c <= child + 1 && c < size; c++) {
+                    if (frontierSize == frontier.length) {
+                        frontier = Arrays.copyOf(frontier, frontierSize * 2);
+                    }
+                    frontier[frontierSize] = c;
+                    frontierUp(frontierSize++);
+                }
+            }
+            return written;
+        }
+
+        private void frontierUp(int i) {
+            int slot = frontier[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(heap[slot], heap[frontier[parent]])) break;
+                frontier[i] = frontier[parent];
+                i = parent;
+            }
+            frontier[i] = slot;
+        }
+
+        private void frontierDown(int i, int n) {
+            if (n == 0) return;
+            int slot = frontier[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) break;
+                if (child + 1 < n && before(heap[frontier[child + 1]], heap[frontier[child]])) child++;
+                if (!before(heap[frontier[child]], heap[slot])) break;
+                frontier[i] = frontier[child];
+                i = child;
+            }
+            frontier[i] = slot;
+        }
+    }
+}
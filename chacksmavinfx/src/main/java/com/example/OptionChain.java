@@ -0,0 +1,373 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Listed call and put contracts on the optionable underlyings, repriced each tick.
+ *
+ * The chain is a dense grid of underlyings x expiries x strikes x {call, put}, so a
+ * contract id encodes its coordinates and every input and output lives in a flat
+ * primitive array.
+ *
+ * The whole grid is repriced by a {@link FullReprice} job that can run off the UI
+ * thread: it snapshots spots and volatilities when it is created, runs the kernel
+ * over fixed-size chunks on the common fork/join pool into back buffers, and
+ * becomes visible only when {@link #publish} swaps those in. The handful of
+ * contracts a caller actually looks at (held positions, the chain on screen) can
+ * be repriced synchronously with {@link #repriceContracts} in between. Outputs
+ * are stored as floats, which halves the memory of a double-buffered chain.
+ *
+ * Contracts are American style on non-dividend underlyings: calls are priced with
+ * Black-Scholes, which is exact since early exercise is never optimal, along with
+ * its closed-form Greeks. Puts use a Cox-Ross-Rubinstein binomial tree to capture
+ * the early-exercise premium, and their delta, gamma and theta are read off the
+ * tree's first two steps so they match the American price; put vega stays the
+ * Black-Scholes value.
+ */
+public class OptionChain {
+
+    // ------------------------------------------------------------------------
+    // Constants
+    // ------------------------------------------------------------------------
+    private static final double[] STRIKE_MONEYNESS = { 0.8, 0.9, 1.0, 1.1, 1.2 };
+    private static final double RISK_FREE_RATE = 0.03;
+    private static final int BINOMIAL_STEPS = 50;
+    private static final int KERNEL_CHUNK = 2048;             // Contracts per parallel task
+
+    private static final double DEFAULT_VOLATILITY = 0.60;     // Annualized, before any prices are seen
+    private static final double VOL_EWMA_DECAY = 0.97;         // Weight of the previous variance estimate
+    private static final double MIN_VOLATILITY = 0.05;
+    private static final double SMILE_CURVATURE = 0.8;         // Extra vol per unit of squared log-moneyness
+
+    // ------------------------------------------------------------------------
+    // State
+    // ------------------------------------------------------------------------
+    private final int underlyingCount;
+    private final int[] expiryTicks;
+    private final double ticksPerYear;
+    private final int strikeCount = STRIKE_MONEYNESS.length;
+    private final int contractCount;
+
+    // Per underlying
+    private final double[] lastSpot;
+    private final double[] variance;       // EWMA of squared per-tick log returns
+
+    // Per strike slot (underlying x strike)
+    private final double[] strikes;
+    private final double[] logMoneyness;   // ln(strike / listing spot), fixed at listing
+
+    // Per contract: the published outputs, and the buffers a full reprice fills
+    private Outputs front;
+    private Outputs back;
+    private FullReprice inFlight;
+
+    /**
+     * @param listingSpot  spot price of each underlying when the chain is listed
+     * @param expiryTicks  expiry of each series, in ticks since the start of the run
+     * @param ticksPerYear ticks that make up one year, for time to expiry
+     */
+    public OptionChain(double[] listingSpot, int[] expiryTicks, double ticksPerYear) {
+        this.underlyingCount = listingSpot.length;
+        this.expiryTicks = expiryTicks.clone();
+        this.ticksPerYear = ticksPerYear;
+        this.contractCount = underlyingCount * expiryTicks.length * strikeCount * 2;
+
+        lastSpot = listingSpot.clone();
+        variance = new double[underlyingCount];
+        Arrays.fill(variance, DEFAULT_VOLATILITY * DEFAULT_VOLATILITY / ticksPerYear);
+
+        strikes = new double[underlyingCount * strikeCount];
+        logMoneyness = new double[strikes.length];
+        for (int u = 0; u < underlyingCount; u++) {
+            for (int k = 0; k < strikeCount; k++) {
+                int slot = u * strikeCount + k;
+                strikes[slot] = roundStrike(listingSpot[u] * STRIKE_MONEYNESS[k]);
+                logMoneyness[slot] = Math.log(strikes[slot] / listingSpot[u]);
+            }
+        }
+
+        front = new Outputs(contractCount);
+        back = new Outputs(contractCount);
+    }
+
+    private static double roundStrike(double raw) {
+        double step = raw >= 50 ? 5 : 1;
+        return Math.max(step, Math.round(raw / step) * step);
+    }
+
+    // ------------------------------------------------------------------------
+    // Contract addressing
+    // ------------------------------------------------------------------------
+    public int contractId(int underlying, int expiryIndex, int strikeIndex, boolean put) {
+        return ((underlying * expiryTicks.length + expiryIndex) * strikeCount + strikeIndex) * 2 + (put ? 1 : 0);
+    }
+
+    public int getUnderlying(int contract) { return contract / (2 * strikeCount * expiryTicks.length); }
+    public int getExpiryIndex(int contract) { return (contract / (2 * strikeCount)) % expiryTicks.length; }
+    public int getStrikeIndex(int contract) { return (contract / 2) % strikeCount; }
+    public boolean isPut(int contract) { return (contract & 1) == 1; }
+    public int getExpiryTick(int contract) { return expiryTicks[getExpiryIndex(contract)]; }
+    public double getStrike(int contract) { return strikes[strikeSlot(contract)]; }
+
+    private int strikeSlot(int contract) {
+        return getUnderlying(contract) * strikeCount + getStrikeIndex(contract);
+    }
+
+    public int getUnderlyingCount() { return underlyingCount; }
+    public int getExpiryCount() { return expiryTicks.length; }
+    public int getStrikeCount() { return strikeCount; }
+    public int getContractCount() { return contractCount; }
+
+    public double getPrice(int contract) { return front.price[contract]; }
+    public double getDelta(int contract) { return front.delta[contract]; }
+    public double getGamma(int contract) { return front.gamma[contract]; }
+    /** Price change per 1.00 (100 vol points) change in volatility. */
+    public double getVega(int contract) { return front.vega[contract]; }
+    /** Price change per year of elapsed time. */
+    public double getTheta(int contract) { return front.theta[contract]; }
+
+    /** Intrinsic value of a contract at the given spot. */
+    public double intrinsic(int contract, double spot) {
+        double k = getStrike(contract);
+        return isPut(contract) ? Math.max(0, k - spot) : Math.max(0, spot - k);
+    }
+
+    // ------------------------------------------------------------------------
+    // Volatility
+    // ------------------------------------------------------------------------
+
+    /** Feeds one observed price into the underlying's realized-volatility estimate. */
+    public void observePrice(int underlying, double spot) {
+        double prev = lastSpot[underlying];
+        if (prev > 0 && spot > 0) {
+            double r = Math.log(spot / prev);
+            variance[underlying] = VOL_EWMA_DECAY * variance[underlying] + (1 - VOL_EWMA_DECAY) * r * r;
+        }
+        lastSpot[underlying] = spot;
+    }
+
+    /** Annualized realized volatility of an underlying. */
+    public double getBaseVol(int underlying) {
+        return Math.max(MIN_VOLATILITY, Math.sqrt(variance[underlying] * ticksPerYear));
+    }
+
+    private double smileVol(double base, int slot) {
+        double m = logMoneyness[slot];
+        return base * (1 + SMILE_CURVATURE * m * m);
+    }
+
+    // ------------------------------------------------------------------------
+    // Pricing
+    // ------------------------------------------------------------------------
+
+    /**
+     * Reprices the given contracts in place against the current volatilities;
+     * meant for the few contracts on screen or held, between full reprices.
+     *
+     * @param spot    spot price by underlying id
+     * @param nowTick current time, in the same ticks as the expiries
+     */
+    public void repriceContracts(int[] contracts, int count, double[] spot, int nowTick) {
+        double[] tree = new double[BINOMIAL_STEPS + 1];
+        double[] putGreeks = new double[4];
+        for (int i = 0; i < count; i++) {
+            int c = contracts[i];
+            int u = getUnderlying(c);
+            priceContract(c, spot[u], getBaseVol(u), nowTick, front, tree, putGreeks);
+        }
+    }
+
+    /**
+     * Snapshots the given spots and the current volatilities into a job that
+     * reprices the whole chain. Only one job may be outstanding at a time.
+     *
+     * @param spot    spot price by underlying id (at least {@link #getUnderlyingCount()} long)
+     * @param nowTick current time, in the same ticks as the expiries
+     */
+    public FullReprice beginFullReprice(double[] spot, int nowTick) {
+        if (inFlight != null) {
+            throw new IllegalStateException("A full reprice is already in flight");
+        }
+        double[] baseVol = new double[underlyingCount];
+        for (int u = 0; u < underlyingCount; u++) {
+            baseVol[u] = getBaseVol(u);
+        }
+        inFlight = new FullReprice(Arrays.copyOf(spot, underlyingCount), baseVol, nowTick, back);
+        return inFlight;
+    }
+
+    public boolean isFullRepriceInFlight() {
+        return inFlight != null;
+    }
+
+    /** Makes a finished job's prices the published ones. Call on the thread that reads prices. */
+    public void publish(FullReprice job) {
+        if (job != inFlight) {
+            throw new IllegalArgumentException("Not the outstanding reprice job");
+        }
+        back = front;
+        front = job.target;
+        inFlight = null;
+    }
+
+    /** Drops a job that failed or will not be published; the published prices stay as they were. */
+    public void discard(FullReprice job) {
+        if (job == inFlight) {
+            inFlight = null;
+        }
+    }
+
+    /** A full-chain reprice over a snapshot of its inputs; safe to run on any thread. */
+    public final class FullReprice implements Runnable {
+        private final double[] spot;
+        private final double[] baseVol;
+        private final int nowTick;
+        private final Outputs target;
+
+        private FullReprice(double[] spot, double[] baseVol, int nowTick, Outputs target) {
+            this.spot = spot;
+            this.baseVol = baseVol;
+            this.nowTick = nowTick;
+            this.target = target;
+        }
+
+        @Override
+        public void run() {
+            int chunks = (contractCount + KERNEL_CHUNK - 1) / KERNEL_CHUNK;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                double[] tree = new double[BINOMIAL_STEPS + 1];
+                double[] putGreeks = new double[4];
+                int from = chunk * KERNEL_CHUNK;
+                int to = Math.min(contractCount, from + KERNEL_CHUNK);
+                for (int c = from; c < to; c++) {
+                    int u = getUnderlying(c);
+                    priceContract(c, spot[u], baseVol[u], nowTick, target, tree, putGreeks);
+                }
+            });
+        }
+    }
+
+    private void priceContract(int c, double s, double baseVol, int nowTick, Outputs out,
+                               double[] tree, double[] putGreeks) {
+        double k = getStrike(c);
+        boolean put = isPut(c);
+        double t = (getExpiryTick(c) - nowTick) / ticksPerYear;
+
+        if (t <= 0) {
+            double intrinsic = intrinsic(c, s);
+            out.set(c, intrinsic, intrinsic > 0 ? (put ? -1 : 1) : 0, 0, 0, 0);
+            return;
+        }
+
+        double sigma = smileVol(baseVol, strikeSlot(c));
+        double sqrtT = Math.sqrt(t);
+        double d1 = (Math.log(s / k) + (RISK_FREE_RATE + 0.5 * sigma * sigma) * t) / (sigma * sqrtT);
+        double pdf = normalPdf(d1);
+        double vega = s * pdf * sqrtT;
+        if (put) {
+            binomialAmericanPut(s, k, t, sigma, tree, putGreeks);
+            out.set(c, putGreeks[0], putGreeks[1], putGreeks[2], vega, putGreeks[3]);
+        } else {
+            double d2 = d1 - sigma * sqrtT;
+            double discount = Math.exp(-RISK_FREE_RATE * t);
+            double nd1 = normalCdf(d1);
+            double nd2 = normalCdf(d2);
+            double price = s * nd1 - k * discount * nd2;
+            double theta = -s * pdf * sigma / (2 * sqrtT) - RISK_FREE_RATE * k * discount * nd2;
+            out.set(c, price, nd1, pdf / (s * sigma * sqrtT), vega, theta);
+        }
+    }
+
+    /**
+     * Prices an American put on a CRR tree and writes {price, delta, gamma, theta}
+     * into {@code out}. The Greeks are finite differences over the nodes at steps
+     * 1 and 2, which the rollback computes anyway.
+     */
+    private static void binomialAmericanPut(double s, double k, double t, double sigma, double[] tree, double[] out) {
+        double dt = t / BINOMIAL_STEPS;
+        double up = Math.exp(sigma * Math.sqrt(dt));
+        double down = 1 / up;
+        double growth = Math.exp(RISK_FREE_RATE * dt);
+        double p = (growth - down) / (up - down);
+        double discount = 1 / growth;
+        double pu = p * discount;
+        double pd = (1 - p) * discount;
+        double upOverDown = up / down;
+
+        // Terminal payoffs, lowest node first
+        double lowest = s * Math.pow(down, BINOMIAL_STEPS);
+        double node = lowest;
+        for (int i = 0; i <= BINOMIAL_STEPS; i++) {
+            tree[i] = Math.max(0, k - node);
+            node *= upOverDown;
+        }
+        // Roll back, allowing early exercise at every node
+        double fdd = 0, fud = 0, fuu = 0, fd = 0, fu = 0;
+        for (int step = BINOMIAL_STEPS - 1; step >= 0; step--) {
+            lowest *= up;
+            node = lowest;
+            for (int i = 0; i <= step; i++) {
+                double hold = pu * tree[i + 1] + pd * tree[i];
+                tree[i] = Math.max(hold, k - node);
+                node *= upOverDown;
+            }
+            if (step == 2) {
+                fdd = tree[0];
+                fud = tree[1];
+                fuu = tree[2];
+            } else if (step == 1) {
+                fd = tree[0];
+                fu = tree[1];
+            }
+        }
+        double sUp = s * up;
+        double sDown = s * down;
+        double sUpUp = sUp * up;
+        double sDownDown = sDown * down;
+        out[0] = tree[0];
+        out[1] = (fu - fd) / (sUp - sDown);
+        out[2] = ((fuu - fud) / (sUpUp - s) - (fud - fdd) / (s - sDownDown)) / (0.5 * (sUpUp - sDownDown));
+        out[3] = (fud - tree[0]) / (2 * dt);
+    }
+
+    private static double normalPdf(double x) {
+        return Math.exp(-0.5 * x * x) / Math.sqrt(2 * Math.PI);
+    }
+
+    /** Standard normal CDF via the Abramowitz-Stegun 7.1.26 erf approximation (|error| < 1.5e-7). */
+    private static double normalCdf(double x) {
+        double z = Math.abs(x) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * z);
+        double poly = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        double erf = 1 - poly * Math.exp(-z * z);
+        return x >= 0 ? 0.5 * (1 + erf) : 0.5 * (1 - erf);
+    }
+
+    // ------------------------------------------------------------------------
+    // One buffer of per-contract outputs
+    // ------------------------------------------------------------------------
+    private static final class Outputs {
+        final float[] price;
+        final float[] delta;
+        final float[] gamma;
+        final float[] vega;
+        final float[] theta;
+
+        Outputs(int contracts) {
+            price = new float[contracts];
+            delta = new float[contracts];
+            gamma = new float[contracts];
+            vega = new float[contracts];
+            theta = new float[contracts];
+        }
+
+        void set(int c, double p, double d, double g, double v, double th) {
+            price[c] = (float) p;
+            delta[c] = (float) d;
+            gamma[c] = (float) g;
+            vega[c] = (float) v;
+            theta[c] = (float) th;
+        }
+    }
+}
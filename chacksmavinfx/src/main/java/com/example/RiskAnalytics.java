@@ -0,0 +1,188 @@
+package com.example;
+
+/**
+ * Streaming risk statistics over the portfolio's net-worth series.
+ *
+ * Every call to {@link #update(double)} is O(1) in time and memory no matter how
+ * long the run is: all-time moments use Welford's online algorithm, the rolling
+ * window keeps a fixed ring buffer with add/remove Welford updates, and the
+ * historical VaR reads from a fixed-size, log-spaced return histogram instead
+ * of a sorted list of every return seen so far.
+ */
+public class RiskAnalytics {
+
+    // ------------------------------------------------------------------------
+    // Constants
+    // ------------------------------------------------------------------------
+    private static final double VAR_CONFIDENCE = 0.95;
+    private static final double VAR_Z_SCORE = 1.6448536269514722; // one-sided 95% normal quantile
+
+    // Return histogram used as the quantile sketch for historical VaR. Bins are
+    // log-spaced in |return| on each side of a small zero bin, so a 0.01% move is
+    // resolved as finely, relative to its size, as a 10% one.
+    private static final double SKETCH_MIN_MAGNITUDE = 1e-7;      // Smaller moves share the zero bin
+    private static final int SKETCH_DECADES = 7;                  // Up to a 100% move
+    private static final int SKETCH_BINS_PER_DECADE = 200;        // ~1.2% relative bin width
+    private static final int SKETCH_SIDE_BINS = SKETCH_DECADES * SKETCH_BINS_PER_DECADE;
+    private static final int SKETCH_BINS = 2 * SKETCH_SIDE_BINS + 1;
+
+    // ------------------------------------------------------------------------
+    // State
+    // ------------------------------------------------------------------------
+    private final double periodsPerYear;
+
+    private double lastValue = Double.NaN;
+    private double peakValue = Double.NaN;
+    private double maxDrawdown = 0;
+    private double currentDrawdown = 0;
+
+    // All-time return moments (Welford)
+    private long count = 0;
+    private double mean = 0;
+    private double m2 = 0;
+    private double downsideSumSq = 0;
+
+    // Rolling window of returns (Welford with removal)
+    private final double[] window;
+    private int windowPos = 0;
+    private int windowCount = 0;
+    private double windowMean = 0;
+    private double windowM2 = 0;
+
+    private final long[] sketch = new long[SKETCH_BINS];
+
+    /**
+     * @param rollingWindow  number of most recent returns used for rolling volatility
+     * @param periodsPerYear number of updates that make up one year, used to annualize
+     */
+    public RiskAnalytics(int rollingWindow, double periodsPerYear) {
+        if (rollingWindow < 2) {
+            throw new IllegalArgumentException("Rolling window must hold at least 2 returns");
+        }
+        this.window = new double[rollingWindow];
+        this.periodsPerYear = periodsPerYear;
+    }
+
+    /**
+     * Records the next portfolio value and updates every statistic.
+     */
+    public void update(double value) {
+        if (Double.isNaN(lastValue)) {
+            lastValue = value;
+            peakValue = value;
+            return;
+        }
+
+        // Drawdown
+        if (value > peakValue) {
+            peakValue = value;
+        }
+        currentDrawdown = peakValue > 0 ? (peakValue - value) / peakValue : 0;
+        if (currentDrawdown > maxDrawdown) {
+            maxDrawdown = currentDrawdown;
+        }
+
+        double r = lastValue != 0 ? (value - lastValue) / lastValue : 0;
+        lastValue = value;
+
+        // All-time moments
+        count++;
+        double delta = r - mean;
+        mean += delta / count;
+        m2 += delta * (r - mean);
+        if (r < 0) {
+            downsideSumSq += r * r;
+        }
+
+        // Rolling window: evict the oldest return once the buffer is full
+        if (windowCount == window.length) {
+            double old = window[windowPos];
+            double oldDelta = old - windowMean;
+            windowMean -= oldDelta / (windowCount - 1);
+            windowM2 -= oldDelta * (old - windowMean);
+            windowCount--;
+        }
+        window[windowPos] = r;
+        windowPos = (windowPos + 1) % window.length;
+        windowCount++;
+        double wDelta = r - windowMean;
+        windowMean += wDelta / windowCount;
+        windowM2 += wDelta * (r - windowMean);
+        if (windowM2 < 0) windowM2 = 0; // guard against round-off after evictions
+
+        sketch[sketchBin(r)]++;
+    }
+
+    // ------------------------------------------------------------------------
+    // Results
+    // ------------------------------------------------------------------------
+    public long getReturnCount() { return count; }
+    public double getMaxDrawdown() { return maxDrawdown; }
+    public double getCurrentDrawdown() { return currentDrawdown; }
+
+    /** Annualized volatility over every return seen so far. */
+    public double getVolatility() {
+        return count > 1 ? Math.sqrt(m2 / (count - 1) * periodsPerYear) : 0;
+    }
+
+    /** Annualized volatility over the rolling window. */
+    public double getRollingVolatility() {
+        return windowCount > 1 ? Math.sqrt(windowM2 / (windowCount - 1) * periodsPerYear) : 0;
+    }
+
+    /** Annualized Sharpe ratio with a zero risk-free rate, or NaN when undefined. */
+    public double getSharpeRatio() {
+        double sd = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+        return sd > 0 ? mean / sd * Math.sqrt(periodsPerYear) : Double.NaN;
+    }
+
+    /** Annualized Sortino ratio with a zero target return, or NaN when undefined. */
+    public double getSortinoRatio() {
+        double downside = count > 0 ? Math.sqrt(downsideSumSq / count) : 0;
+        return downside > 0 ? mean / downside * Math.sqrt(periodsPerYear) : Double.NaN;
+    }
+
+    /** One-period historical VaR at 95%, as a positive fraction of portfolio value. */
+    public double getHistoricalVaR() {
+        if (count == 0) return 0;
+        double target = count * (1 - VAR_CONFIDENCE);
+        long seen = 0;
+        for (int i = 0; i < SKETCH_BINS; i++) {
+            if (sketch[i] == 0) continue;
+            if (seen + sketch[i] >= target) {
+                // Interpolate linearly between the bin's edges by rank
+                double fraction = Math.max(0, target - seen) / sketch[i];
+                double lower = sketchEdge(i);
+                double r = lower + fraction * (sketchEdge(i + 1) - lower);
+                return Math.max(0, -r);
+            }
+            seen += sketch[i];
+        }
+        return 0;
+    }
+
+    /** One-period parametric (normal) VaR at 95%, as a positive fraction of portfolio value. */
+    public double getParametricVaR() {
+        if (count < 2) return 0;
+        double sd = Math.sqrt(m2 / (count - 1));
+        return Math.max(0, -(mean - VAR_Z_SCORE * sd));
+    }
+
+    /** Bins run from the largest loss (0) through the zero bin to the largest gain. */
+    private static int sketchBin(double r) {
+        double magnitude = Math.abs(r);
+        if (magnitude < SKETCH_MIN_MAGNITUDE) return SKETCH_SIDE_BINS;
+        int k = (int) Math.floor(Math.log10(magnitude / SKETCH_MIN_MAGNITUDE) * SKETCH_BINS_PER_DECADE);
+        k = Math.min(k, SKETCH_SIDE_BINS - 1);
+        return r < 0 ? SKETCH_SIDE_BINS - 1 - k : SKETCH_SIDE_BINS + 1 + k;
+    }
+
+    /** Lower return edge of bin {@code i}; bin {@code i} spans up to {@code sketchEdge(i + 1)}. */
+    private static double sketchEdge(int i) {
+        if (i <= SKETCH_SIDE_BINS) {
+            // Loss side: bin i starts at the magnitude of level SKETCH_SIDE_BINS - i
+            return -SKETCH_MIN_MAGNITUDE * Math.pow(10, (double) (SKETCH_SIDE_BINS - i) / SKETCH_BINS_PER_DECADE);
+        }
+        return SKETCH_MIN_MAGNITUDE * Math.pow(10, (double) (i - SKETCH_SIDE_BINS - 1) / SKETCH_BINS_PER_DECADE);
+    }
+}
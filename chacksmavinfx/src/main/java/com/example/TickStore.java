@@ -0,0 +1,400 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compressed columnar store for per-instrument (timestamp, price) histories.
+ *
+ * Each series is cut into fixed-size blocks encoded Gorilla-style: timestamps as
+ * delta-of-deltas with variable-width buckets and values as XORs against the
+ * previous value, so a steady one-point-per-second series costs one bit per
+ * timestamp. Sealed blocks carry their time range for binary-searched range
+ * queries and, once the resident size passes a budget, the oldest sealed blocks
+ * are spilled to a temp file and read back only when a query touches them.
+ */
+public class TickStore {
+
+    /** Receives points from a range scan, in timestamp order. */
+    public interface PointConsumer {
+        void accept(int timestamp, double value);
+    }
+
+    private final int pointsPerBlock;
+    private final long residentBudgetBytes;
+
+    private final Series[] series;
+    private long residentBytes = 0;
+    private long pointCount = 0;
+
+    // Sealed, still-resident blocks in sealing order (series << 32 | block)
+    private long[] spillQueue = new long[256];
+    private int spillHead = 0;
+    private int spillTail = 0;
+
+    private FileChannel spillFile;
+    private long spillFileSize = 0;
+
+    public TickStore(int seriesCount, int pointsPerBlock, long residentBudgetBytes) {
+        if (pointsPerBlock < 2) {
+            throw new IllegalArgumentException("Blocks must hold at least 2 points");
+        }
+        this.pointsPerBlock = pointsPerBlock;
+        this.residentBudgetBytes = residentBudgetBytes;
+        this.series = new Series[seriesCount];
+        for (int i = 0; i < seriesCount; i++) {
+            series[i] = new Series();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Writes
+    // ------------------------------------------------------------------------
+
+    /** Appends a point; timestamps within a series must not decrease. */
+    public void append(int seriesId, int timestamp, double value) {
+        Series s = series[seriesId];
+        if ((s.openCount > 0 || s.blockCount > 0) && timestamp < s.prevTimestamp) {
+            throw new IllegalArgumentException("Out-of-order timestamp " + timestamp + " for series " + seriesId);
+        }
+        if (s.open == null) {
+            s.open = new BitWriter();
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        BitWriter w = s.open;
+        long before = w.byteSize();
+
+        if (s.openCount == 0) {
+            s.openFirstTimestamp = timestamp;
+            w.write(timestamp & 0xffffffffL, 32);
+            w.write(bits, 64);
+            s.prevDelta = 0;
+            s.prevLeading = Integer.MAX_VALUE;
+            s.prevTrailing = 0;
+        } else {
+            int delta = timestamp - s.prevTimestamp;
+            writeDeltaOfDelta(w, delta - s.prevDelta);
+            s.prevDelta = delta;
+            writeXor(s, w, bits ^ s.prevBits);
+        }
+        s.prevTimestamp = timestamp;
+        s.prevBits = bits;
+        s.openCount++;
+        pointCount++;
+        residentBytes += w.byteSize() - before;
+
+        if (s.openCount == pointsPerBlock) {
+            seal(seriesId, s);
+        }
+    }
+
+    private static void writeDeltaOfDelta(BitWriter w, int dod) {
+        if (dod == 0) {
+            w.write(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            w.write(0b10, 2);
+            w.write(dod & 0x7f, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            w.write(0b110, 3);
+            w.write(dod & 0x1ff, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            w.write(0b1110, 4);
+            w.write(dod & 0xfff, 12);
+        } else {
+            w.write(0b1111, 4);
+            w.write(dod & 0xffffffffL, 32);
+        }
+    }
+
+    private static void writeXor(Series s, BitWriter w, long xor) {
+        if (xor == 0) {
+            w.write(0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (leading >= s.prevLeading && trailing >= s.prevTrailing) {
+            // Meaningful bits fit inside the previous window
+            w.write(0b10, 2);
+            int width = 64 - s.prevLeading - s.prevTrailing;
+            w.write(xor >>> s.prevTrailing, width);
+        } else {
+            int width = 64 - leading - trailing;
+            w.write(0b11, 2);
+            w.write(leading, 5);
+            w.write(width - 1, 6);
+            w.write(xor >>> trailing, width);
+            s.prevLeading = leading;
+            s.prevTrailing = trailing;
+        }
+    }
+
+    private void seal(int seriesId, Series s) {
+        long[] data = s.open.toArray();
+        residentBytes += (long) data.length * Long.BYTES - s.open.byteSize();
+        int block = s.addBlock(s.openFirstTimestamp, s.prevTimestamp, s.openCount, data);
+        s.open = null;
+        s.openCount = 0;
+
+        if (spillTail == spillQueue.length) {
+            compactSpillQueue();
+        }
+        spillQueue[spillTail++] = ((long) seriesId << 32) | block;
+        while (residentBytes > residentBudgetBytes && spillHead < spillTail) {
+            long entry = spillQueue[spillHead++];
+            spill(series[(int) (entry >>> 32)], (int) entry);
+        }
+    }
+
+    private void compactSpillQueue() {
+        int live = spillTail - spillHead;
+        if (live * 2 > spillQueue.length) {
+            spillQueue = Arrays.copyOf(spillQueue, spillQueue.length * 2);
+        }
+        System.arraycopy(spillQueue, spillHead, spillQueue, 0, live);
+        spillHead = 0;
+        spillTail = live;
+    }
+
+    private void spill(Series s, int block) {
+        long[] data = s.blockData[block];
+        try {
+            if (spillFile == null) {
+                Path path = Files.createTempFile("tickstore", ".spill");
+                path.toFile().deleteOnExit();
+                spillFile = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer buf = ByteBuffer.allocate(data.length * Long.BYTES);
+            buf.asLongBuffer().put(data);
+            long offset = spillFileSize;
+            while (buf.hasRemaining()) {
+                spillFile.write(buf, offset + buf.position());
+            }
+            spillFileSize += data.length * Long.BYTES;
+            s.blockSpillOffset[block] = offset;
+            s.blockWords[block] = data.length;
+            s.blockData[block] = null;
+            residentBytes -= (long) data.length * Long.BYTES;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill tick block", e);
+        }
+    }
+
+    private long[] readSpilled(Series s, int block) {
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(s.blockWords[block] * Long.BYTES);
+            long offset = s.blockSpillOffset[block];
+            while (buf.hasRemaining()) {
+                if (spillFile.read(buf, offset + buf.position()) < 0) {
+                    throw new IOException("Unexpected end of spill file");
+                }
+            }
+            buf.flip();
+            long[] data = new long[s.blockWords[block]];
+            buf.asLongBuffer().get(data);
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spilled tick block", e);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Reads
+    // ------------------------------------------------------------------------
+
+    /** Streams every point of a series with {@code from <= timestamp <= to}. */
+    public void scan(int seriesId, int from, int to, PointConsumer consumer) {
+        Series s = series[seriesId];
+        // First sealed block whose last timestamp reaches the range
+        int lo = 0;
+        int hi = s.blockCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (s.blockLastTs[mid] < from) lo = mid + 1; else hi = mid;
+        }
+        for (int b = lo; b < s.blockCount && s.blockFirstTs[b] <= to; b++) {
+            long[] data = s.blockData[b] != null ? s.blockData[b] : readSpilled(s, b);
+            decode(data, s.blockPoints[b], from, to, consumer);
+        }
+        if (s.openCount > 0 && s.openFirstTimestamp <= to && s.prevTimestamp >= from) {
+            decode(s.open.words, s.openCount, from, to, consumer);
+        }
+    }
+
+    private static void decode(long[] data, int count, int from, int to, PointConsumer consumer) {
+        BitReader r = new BitReader(data);
+        int ts = (int) r.read(32);
+        long bits = r.read(64);
+        int delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 0; ; i++) {
+            if (ts > to) return;
+            if (ts >= from) consumer.accept(ts, Double.longBitsToDouble(bits));
+            if (i + 1 == count) return;
+
+            delta += readDeltaOfDelta(r);
+            ts += delta;
+            if (r.read(1) != 0) {
+                if (r.read(1) != 0) {
+                    leading = (int) r.read(5);
+                    int width = (int) r.read(6) + 1;
+                    trailing = 64 - leading - width;
+                }
+                int width = 64 - leading - trailing;
+                bits ^= r.read(width) << trailing;
+            }
+        }
+    }
+
+    private static int readDeltaOfDelta(BitReader r) {
+        if (r.read(1) == 0) return 0;
+        if (r.read(1) == 0) return signExtend(r.read(7), 7);
+        if (r.read(1) == 0) return signExtend(r.read(9), 9);
+        if (r.read(1) == 0) return signExtend(r.read(12), 12);
+        return (int) r.read(32);
+    }
+
+    private static int signExtend(long value, int width) {
+        // The positive edge of each bucket (e.g. +64 in 7 bits) wraps to the negative edge
+        int v = (int) value;
+        int half = 1 << (width - 1);
+        return v > half ? v - (1 << width) : v;
+    }
+
+    public int size(int seriesId) {
+        Series s = series[seriesId];
+        int n = s.openCount;
+        for (int b = 0; b < s.blockCount; b++) n += s.blockPoints[b];
+        return n;
+    }
+
+    /** First timestamp of a series, or -1 when empty. */
+    public int firstTimestamp(int seriesId) {
+        Series s = series[seriesId];
+        if (s.blockCount > 0) return s.blockFirstTs[0];
+        return s.openCount > 0 ? s.openFirstTimestamp : -1;
+    }
+
+    /** Last timestamp of a series, or -1 when empty. */
+    public int lastTimestamp(int seriesId) {
+        Series s = series[seriesId];
+        if (s.openCount > 0) return s.prevTimestamp;
+        return s.blockCount > 0 ? s.blockLastTs[s.blockCount - 1] : -1;
+    }
+
+    public long getPointCount() { return pointCount; }
+    public long getResidentBytes() { return residentBytes; }
+    public long getSpilledBytes() { return spillFileSize; }
+
+    // ------------------------------------------------------------------------
+    // Per-series state
+    // ------------------------------------------------------------------------
+    private static class Series {
+        // Open block encoder state
+        BitWriter open;
+        int openCount;
+        int openFirstTimestamp;
+        int prevTimestamp;
+        int prevDelta;
+        long prevBits;
+        int prevLeading;
+        int prevTrailing;
+
+        // Sealed blocks; arrays start empty so idle series stay small
+        int blockCount;
+        int[] blockFirstTs = new int[0];
+        int[] blockLastTs = new int[0];
+        int[] blockPoints = new int[0];
+        long[][] blockData = new long[0][];
+        long[] blockSpillOffset = new long[0];
+        int[] blockWords = new int[0];
+
+        int addBlock(int firstTs, int lastTs, int points, long[] data) {
+            if (blockCount == blockFirstTs.length) {
+                int cap = Math.max(4, blockCount * 2);
+                blockFirstTs = Arrays.copyOf(blockFirstTs, cap);
+                blockLastTs = Arrays.copyOf(blockLastTs, cap);
+                blockPoints = Arrays.copyOf(blockPoints, cap);
+                blockData = Arrays.copyOf(blockData, cap);
+                blockSpillOffset = Arrays.copyOf(blockSpillOffset, cap);
+                blockWords = Arrays.copyOf(blockWords, cap);
+            }
+            blockFirstTs[blockCount] = firstTs;
+            blockLastTs[blockCount] = lastTs;
+            blockPoints[blockCount] = points;
+            blockData[blockCount] = data;
+            blockSpillOffset[blockCount] = -1;
+            blockWords[blockCount] = data.length;
+            return blockCount++;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Bit streams over long[] words, most significant bit first
+    // ------------------------------------------------------------------------
+    private static class BitWriter {
+        long[] words = new long[4];
+        long bitPos = 0;
+
+        void write(long value, int width) {
+            if (width == 0) return;
+            if (width < 64) value &= (1L << width) - 1;
+            int word = (int) (bitPos >>> 6);
+            int used = (int) (bitPos & 63);
+            if (word + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            int free = 64 - used;
+            if (width <= free) {
+                words[word] |= value << (free - width);
+            } else {
+                int spill = width - free;
+                words[word] |= value >>> spill;
+                words[word + 1] |= value << (64 - spill);
+            }
+            bitPos += width;
+        }
+
+        long byteSize() {
+            return (long) words.length * Long.BYTES;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (int) ((bitPos + 63) >>> 6));
+        }
+    }
+
+    private static class BitReader {
+        private final long[] words;
+        private long bitPos = 0;
+
+        BitReader(long[] words) {
+            this.words = words;
+        }
+
+        long read(int width) {
+            if (width == 0) return 0;
+            int word = (int) (bitPos >>> 6);
+            int used = (int) (bitPos & 63);
+            int avail = 64 - used;
+            long result;
+            if (width <= avail) {
+                result = words[word] << used >>> (64 - width);
+            } else {
+                int rest = width - avail;
+                long high = words[word] << used >>> used;
+                result = (high << rest) | (words[word + 1] >>> (64 - rest));
+            }
+            bitPos += width;
+            return result;
+        }
+    }
+}
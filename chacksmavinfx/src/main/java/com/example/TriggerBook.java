@@ -0,0 +1,216 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Resting stop-loss, take-profit and price-alert triggers, indexed by price.
+ *
+ * Each instrument keeps two heaps keyed by trigger level: a max-heap of triggers
+ * that fire when the price falls to or below their level and a min-heap of those
+ * that fire when it rises to or above it. A price move only looks at the two
+ * heap tops, so it costs O(1) when nothing fires and O(log n) per trigger that
+ * does. Trigger fields live in parallel primitive arrays and ids are recycled
+ * once nothing can still read them.
+ */
+public class TriggerBook {
+
+    public enum Kind {
+        STOP_LOSS(true, "Stop loss"),
+        TAKE_PROFIT(false, "Take profit"),
+        ALERT_BELOW(true, "Alert"),
+        ALERT_ABOVE(false, "Alert");
+
+        private final boolean firesBelow;
+        private final String label;
+
+        Kind(boolean firesBelow, String label) {
+            this.firesBelow = firesBelow;
+            this.label = label;
+        }
+
+        /** True if the trigger fires when the price drops to its level. */
+        public boolean firesBelow() { return firesBelow; }
+        public String getLabel() { return label; }
+        public boolean isAlert() { return this == ALERT_BELOW || this == ALERT_ABOVE; }
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    // Trigger fields, indexed by trigger id
+    private int capacity = 0;
+    private int[] instrument = new int[0];
+    private byte[] kind = new byte[0];
+    private double[] level = new double[0];
+    private int[] shares = new int[0];
+
+    // Ids that left every heap and can be handed out again
+    private int[] freeIds = new int[16];
+    private int freeCount = 0;
+    private int activeCount = 0;
+
+    // Per instrument, created on first use
+    private final LevelHeap[] below;
+    private final LevelHeap[] above;
+
+    // Triggers fired by the last collectFired call; their ids are released by the next one
+    private int[] fired = new int[16];
+    private int firedCount = 0;
+
+    public TriggerBook(int instrumentCount) {
+        below = new LevelHeap[instrumentCount];
+        above = new LevelHeap[instrumentCount];
+    }
+
+    // ------------------------------------------------------------------------
+    // Resting triggers
+    // ------------------------------------------------------------------------
+
+    /**
+     * Adds a trigger and returns its id. {@code shareCount} is ignored for alerts.
+     *
+     * @throws IllegalArgumentException if the level is not a positive finite price,
+     *         which the level heaps could not order
+     */
+    public int add(int instrumentId, Kind triggerKind, double triggerLevel, int shareCount) {
+        if (!(triggerLevel > 0 && triggerLevel < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Trigger level must be a positive finite price: " + triggerLevel);
+        }
+        int id = freeCount > 0 ? freeIds[--freeCount] : grow();
+        instrument[id] = instrumentId;
+        kind[id] = (byte) triggerKind.ordinal();
+        level[id] = triggerLevel;
+        shares[id] = shareCount;
+        activeCount++;
+
+        LevelHeap[] side = triggerKind.firesBelow() ? below : above;
+        if (side[instrumentId] == null) {
+            side[instrumentId] = new LevelHeap(triggerKind.firesBelow());
+        }
+        side[instrumentId].push(id, level);
+        return id;
+    }
+
+    private int grow() {
+        int id = capacity;
+        if (id == instrument.length) {
+            int cap = Math.max(16, id * 2);
+            instrument = Arrays.copyOf(instrument, cap);
+            kind = Arrays.copyOf(kind, cap);
+            level = Arrays.copyOf(level, cap);
+            shares = Arrays.copyOf(shares, cap);
+        }
+        capacity++;
+        return id;
+    }
+
+    /** Cancels every trigger on an instrument and returns how many there were. */
+    public int cancelAll(int instrumentId) {
+        int cancelled = 0;
+        for (LevelHeap heap : new LevelHeap[] { below[instrumentId], above[instrumentId] }) {
+            if (heap == null) continue;
+            for (int i = 0; i < heap.size; i++) {
+                release(heap.ids[i]);
+            }
+            cancelled += heap.size;
+            heap.size = 0;
+        }
+        activeCount -= cancelled;
+        return cancelled;
+    }
+
+    private void release(int id) {
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    // ------------------------------------------------------------------------
+    // Firing
+    // ------------------------------------------------------------------------
+
+    /**
+     * Removes and returns the number of triggers on an instrument crossed by
+     * {@code price}. Read them with {@link #getFired(int)}; their ids and fields
+     * stay valid until the next call, which recycles them.
+     */
+    public int collectFired(int instrumentId, double price) {
+        for (int i = 0; i < firedCount; i++) {
+            release(fired[i]);
+        }
+        firedCount = 0;
+        drain(below[instrumentId], price);
+        drain(above[instrumentId], price);
+        return firedCount;
+    }
+
+    private void drain(LevelHeap heap, double price) {
+        if (heap == null) return;
+        while (heap.size > 0) {
+            int top = heap.ids[0];
+            boolean crossed = heap.max ? price <= level[top] : price >= level[top];
+            if (!crossed) break;
+            activeCount--;
+            if (firedCount == fired.length) {
+                fired = Arrays.copyOf(fired, firedCount * 2);
+            }
+            fired[firedCount++] = top;
+            heap.pop(level);
+        }
+    }
+
+    public int getFired(int index) { return fired[index]; }
+
+    public int getInstrument(int id) { return instrument[id]; }
+    public Kind getKind(int id) { return KINDS[kind[id]]; }
+    public double getLevel(int id) { return level[id]; }
+    public int getShares(int id) { return shares[id]; }
+
+    /** Number of resting triggers. */
+    public int size() { return activeCount; }
+
+    // ------------------------------------------------------------------------
+    // Binary heap of trigger ids ordered by level
+    // ------------------------------------------------------------------------
+    private static class LevelHeap {
+        private final boolean max;
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        LevelHeap(boolean max) {
+            this.max = max;
+        }
+
+        private boolean before(int a, int b, double[] level) {
+            return max ? level[a] > level[b] : level[a] < level[b];
+        }
+
+        void push(int id, double[] level) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(id, ids[parent], level)) break;
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            ids[i] = id;
+        }
+
+        void pop(double[] level) {
+            int last = ids[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && before(ids[child + 1], ids[child], level)) child++;
+                if (!before(ids[child], last, level)) break;
+                ids[i] = ids[child];
+                i = child;
+            }
+            if (size > 0) ids[i] = last;
+        }
+    }
+}